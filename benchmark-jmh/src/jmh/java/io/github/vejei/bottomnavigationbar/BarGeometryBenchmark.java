@@ -0,0 +1,71 @@
+package io.github.vejei.bottomnavigationbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** The geometry of a whole bar: slot widths and positions, and the hump. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BarGeometryBenchmark {
+    @Param({"3", "4", "5"})
+    public int slotCount;
+
+    @Param({"360", "600"})
+    public int barWidthDp;
+
+    @Param({"1.5", "2.75", "4.0"})
+    public float density;
+
+    @Param({"true", "false"})
+    public boolean layoutLtr;
+
+    private int barWidth;
+    private int itemHeight;
+    private int actionViewHeight;
+    private int humpPadding;
+    private int maxHumpHeight;
+    private final float[] curve = new float[BarGeometry.HUMP_CURVE_SIZE];
+
+    @Setup
+    public void setUp() {
+        barWidth = dp(barWidthDp);
+        itemHeight = dp(56);
+        actionViewHeight = dp(72);
+        humpPadding = dp(8);
+        maxHumpHeight = dp(24);
+    }
+
+    private int dp(int value) {
+        return Math.round(value * density);
+    }
+
+    @Benchmark
+    public void slots(Blackhole blackhole) {
+        int itemWidth = BarGeometry.itemWidth(barWidth, slotCount);
+        int used = 0;
+        for (int i = 0; i < slotCount; i++) {
+            blackhole.consume(BarGeometry.slotLeft(barWidth, used, itemWidth, layoutLtr));
+            used += itemWidth;
+        }
+    }
+
+    @Benchmark
+    public float[] hump() {
+        int itemWidth = BarGeometry.itemWidth(barWidth, slotCount);
+        float humpWidth = BarGeometry.humpWidth(itemWidth);
+        float humpHeight = BarGeometry.humpHeight(actionViewHeight, itemHeight, humpPadding,
+                maxHumpHeight);
+        BarGeometry.computeHumpCurve(barWidth, humpWidth, humpHeight, 0, curve);
+        return curve;
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.vejei.bottomnavigationbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** The content layout of every item of a bar, as done on each layout pass. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemContentLayoutBenchmark {
+    @Param({"3", "4", "5"})
+    public int itemCount;
+
+    @Param({"1.5", "2.75", "4.0"})
+    public float density;
+
+    @Param({"true", "false"})
+    public boolean labelShown;
+
+    private int itemWidth;
+    private int itemHeight;
+    private int iconSize;
+    private int labelTop;
+    private int labelHeight;
+    private int contentSpacing;
+    private final ItemContentLayout layout = new ItemContentLayout();
+
+    @Setup
+    public void setUp() {
+        itemWidth = dp(360) / itemCount;
+        itemHeight = dp(56);
+        iconSize = dp(24);
+        labelTop = -dp(9);
+        labelHeight = dp(12);
+        contentSpacing = dp(4);
+    }
+
+    private int dp(int value) {
+        return Math.round(value * density);
+    }
+
+    @Benchmark
+    public ItemContentLayout layoutItems() {
+        for (int i = 0; i < itemCount; i++) {
+            int left = i * itemWidth;
+            if (labelShown) {
+                layout.layoutWithLabel(left, 0, itemWidth, itemHeight, iconSize, iconSize,
+                        labelTop, labelHeight, contentSpacing);
+            } else {
+                layout.layoutIconOnly(left, 0, itemWidth, itemHeight, iconSize, iconSize);
+            }
+        }
+        return layout;
+    }
+}
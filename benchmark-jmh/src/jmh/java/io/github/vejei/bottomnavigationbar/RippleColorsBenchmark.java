@@ -0,0 +1,28 @@
+package io.github.vejei.bottomnavigationbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** The conversion of ripple colors, for colors from transparent to opaque. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RippleColorsBenchmark {
+    private final int[] colors = {
+            0x00000000, 0x1F000000, 0x3D6200EE, 0x7F03DAC5, 0xB3FFFFFF, 0xFFFF0000
+    };
+
+    @Benchmark
+    public void doubleAlpha(Blackhole blackhole) {
+        for (int color : colors) {
+            blackhole.consume(RippleColors.doubleAlpha(color));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.vejei.bottomnavigationbar.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs timed operations and collects their results, which are written as JSON so that releases
+ * can be compared by tools.
+ */
+final class BenchmarkRunner {
+    /** An operation to time, called once per iteration. */
+    interface Operation {
+        void run(int iteration);
+    }
+
+    static final class Result {
+        final String name;
+        final int iterations;
+        final long minNanos;
+        final long medianNanos;
+        final long meanNanos;
+        /** The bytes allocated by all measured iterations, -1 if the JVM cannot tell. */
+        final long allocatedBytes;
+        /** The bytes allocated by an iteration on average, -1 if the JVM cannot tell. */
+        final long allocatedBytesPerOp;
+
+        Result(String name, long[] nanos, long allocatedBytes) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long value : sorted) {
+                total += value;
+            }
+            this.name = name;
+            this.iterations = sorted.length;
+            this.minNanos = sorted[0];
+            this.medianNanos = sorted[sorted.length / 2];
+            this.meanNanos = total / sorted.length;
+            this.allocatedBytes = allocatedBytes;
+            this.allocatedBytesPerOp = (allocatedBytes < 0) ? -1 : allocatedBytes / sorted.length;
+        }
+    }
+
+    private final String suiteName;
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final List<Result> results = new ArrayList<>();
+
+    BenchmarkRunner(String suiteName, int warmupIterations, int measuredIterations) {
+        this.suiteName = suiteName;
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    Result run(String name, Operation operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run(i);
+        }
+
+        long[] nanos = new long[measuredIterations];
+        long allocatedBefore = currentThreadAllocatedBytes();
+        for (int i = 0; i < measuredIterations; i++) {
+            long start = System.nanoTime();
+            operation.run(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocatedAfter = currentThreadAllocatedBytes();
+
+        long allocatedBytes = (allocatedBefore < 0 || allocatedAfter < 0) ? -1
+                : allocatedAfter - allocatedBefore;
+        Result result = new Result(name, nanos, allocatedBytes);
+        results.add(result);
+        return result;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()
+                    && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write the results to {@code <suite name>.json} in the directory given by the
+     * {@code benchmark.outputDir} system property, or the working directory.
+     */
+    File writeJson(int sdkVersion) throws IOException {
+        File directory = new File(System.getProperty("benchmark.outputDir", "."));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File file = new File(directory, suiteName + ".json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8)) {
+            writer.write(toJson(sdkVersion));
+        }
+        return file;
+    }
+
+    String toJson(int sdkVersion) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"suite\": \"").append(suiteName).append("\",\n");
+        json.append("  \"sdk\": ").append(sdkVersion).append(",\n");
+        json.append("  \"warmupIterations\": ").append(warmupIterations).append(",\n");
+        json.append("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(String.format(Locale.ROOT,
+                    "    {\"name\": \"%s\", \"iterations\": %d, \"minNanos\": %d,"
+                            + " \"medianNanos\": %d, \"meanNanos\": %d,"
+                            + " \"allocatedBytesPerOp\": %d}",
+                    result.name, result.iterations, result.minNanos, result.medianNanos,
+                    result.meanNanos, result.allocatedBytesPerOp));
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+}
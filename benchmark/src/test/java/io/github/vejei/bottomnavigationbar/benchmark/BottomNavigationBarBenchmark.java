@@ -0,0 +1,353 @@
+package io.github.vejei.bottomnavigationbar.benchmark;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.RectF;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.ContextThemeWrapper;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import io.github.vejei.bottomnavigationbar.BottomNavigationBar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Benchmarks of the bar on the JVM. The results are written to
+ * {@code build/benchmark-results/BottomNavigationBarBenchmark.json}, run them with
+ * {@code ./gradlew :benchmark:testReleaseUnitTest}.
+ *
+ * <p>The bar is measured with 3, 4 and 5 slots, where the action view takes one slot when there
+ * is one. Times are only comparable between runs on the same machine, the allocations are
+ * comparable anywhere.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class BottomNavigationBarBenchmark {
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 300;
+
+    private static final int BAR_WIDTH = 1080;
+    private static final int BAR_MAX_HEIGHT = 1920;
+
+    private static final int[] SLOT_COUNTS = {3, 4, 5};
+    private static final int[] ITEM_IDS = {
+            R.id.benchmark_item_1, R.id.benchmark_item_2, R.id.benchmark_item_3,
+            R.id.benchmark_item_4, R.id.benchmark_item_5
+    };
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner(
+            BottomNavigationBarBenchmark.class.getSimpleName(), WARMUP_ITERATIONS,
+            MEASURED_ITERATIONS);
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(),
+                R.style.Theme_Benchmark);
+    }
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        runner.writeJson(Build.VERSION.SDK_INT);
+    }
+
+    @Test
+    public void inflate() {
+        for (int slotCount : SLOT_COUNTS) {
+            for (boolean actionLayout : new boolean[] {false, true}) {
+                final AttributeSet attrs = buildAttributes(slotCount, actionLayout, false);
+                runner.run("inflate/" + configName(slotCount, actionLayout),
+                        new BenchmarkRunner.Operation() {
+                            @Override
+                            public void run(int iteration) {
+                                new BottomNavigationBar(context, attrs);
+                            }
+                        });
+            }
+        }
+    }
+
+    @Test
+    public void measureAndLayout() {
+        for (int slotCount : SLOT_COUNTS) {
+            for (boolean actionLayout : new boolean[] {false, true}) {
+                final BottomNavigationBar bar = createBar(slotCount, actionLayout, false);
+                layout(bar);
+
+                runner.run("measureLayout/" + configName(slotCount, actionLayout),
+                        new BenchmarkRunner.Operation() {
+                            @Override
+                            public void run(int iteration) {
+                                bar.requestLayout();
+                                layout(bar);
+                            }
+                        });
+
+                // A parent measuring the bar again in the same layout pass.
+                runner.run("remeasure/" + configName(slotCount, actionLayout),
+                        new BenchmarkRunner.Operation() {
+                            @Override
+                            public void run(int iteration) {
+                                bar.forceLayout();
+                                measure(bar);
+                            }
+                        });
+            }
+        }
+    }
+
+    @Test
+    public void clickSelection() {
+        for (int slotCount : SLOT_COUNTS) {
+            for (boolean selectedLabel : new boolean[] {false, true}) {
+                final BottomNavigationBar bar = createBar(slotCount, false, false);
+                if (selectedLabel) {
+                    // Only the selected item shows its label, so every click moves two contents.
+                    bar.setItemLabelVisibilityMode(BottomNavigationBar.LABEL_VISIBILITY_SELECTED);
+                }
+                layout(bar);
+
+                final View[] itemViews = new View[slotCount];
+                for (int i = 0; i < slotCount; i++) {
+                    itemViews[i] = bar.findViewById(ITEM_IDS[i]);
+                    assertNotNull(itemViews[i]);
+                }
+
+                runner.run("click/" + configName(slotCount, false)
+                                + (selectedLabel ? "/selected-label" : ""),
+                        new BenchmarkRunner.Operation() {
+                            @Override
+                            public void run(int iteration) {
+                                itemViews[iteration % itemViews.length].performClick();
+                            }
+                        });
+                assertFalse(bar.isLayoutRequested());
+            }
+        }
+    }
+
+    @Test
+    public void touchSelectionFlattened() {
+        for (final int slotCount : SLOT_COUNTS) {
+            final BottomNavigationBar bar = createBar(slotCount, false, true);
+            layout(bar);
+            assertEquals(0, bar.getChildCount());
+
+            final float slotWidth = (float) bar.getWidth() / slotCount;
+            final float y = bar.getHeight() / 2f;
+            runner.run("touch/" + configName(slotCount, false) + "/flattened",
+                    new BenchmarkRunner.Operation() {
+                        @Override
+                        public void run(int iteration) {
+                            float x = slotWidth * (iteration % slotCount + 0.5f);
+                            long time = SystemClock.uptimeMillis();
+                            dispatchTouch(bar, MotionEvent.ACTION_DOWN, time, x, y);
+                            dispatchTouch(bar, MotionEvent.ACTION_UP, time, x, y);
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void draw() {
+        for (int slotCount : SLOT_COUNTS) {
+            for (boolean actionLayout : new boolean[] {false, true}) {
+                for (boolean flattened : new boolean[] {false, true}) {
+                    final BottomNavigationBar bar = createBar(slotCount, actionLayout, flattened);
+                    layout(bar);
+
+                    final Picture picture = new Picture();
+                    runner.run("draw/" + configName(slotCount, actionLayout)
+                                    + (flattened ? "/flattened" : ""),
+                            new BenchmarkRunner.Operation() {
+                                @Override
+                                public void run(int iteration) {
+                                    Canvas canvas = picture.beginRecording(bar.getWidth(),
+                                            bar.getHeight());
+                                    bar.draw(canvas);
+                                    picture.endRecording();
+                                }
+                            });
+                }
+            }
+        }
+    }
+
+    @Test
+    public void drawDoesNotAllocate() {
+        for (boolean flattened : new boolean[] {false, true}) {
+            final BottomNavigationBar bar = createBar(4, false, flattened);
+            bar.showBadge(R.id.benchmark_item_2);
+            bar.setBadgeNumber(R.id.benchmark_item_3, 120);
+            layout(bar);
+
+            final Canvas canvas = new DiscardingCanvas();
+            BenchmarkRunner.Result result = runner.run("drawAllocations/"
+                            + configName(4, false) + (flattened ? "/flattened" : ""),
+                    new BenchmarkRunner.Operation() {
+                        @Override
+                        public void run(int iteration) {
+                            bar.draw(canvas);
+                        }
+                    });
+            // Any byte counts, the average per draw would round a few small allocations to 0.
+            assumeTrue("The JVM cannot count allocations.", result.allocatedBytes >= 0);
+            assertEquals("Bytes allocated by " + result.iterations + " draws"
+                    + (flattened ? " of flattened items" : ""), 0, result.allocatedBytes);
+        }
+    }
+
+    @Test
+    public void themesSharingASelectorGetTheirOwnColors() {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.navigation_menu, "@menu/benchmark_three_items")
+                .addAttribute(R.attr.item_icon_tint, "@color/benchmark_item_tint")
+                .addAttribute(R.attr.item_label_text_color, "@color/benchmark_item_tint")
+                .build();
+        BottomNavigationBar redBar = new BottomNavigationBar(new ContextThemeWrapper(
+                ApplicationProvider.getApplicationContext(), R.style.Theme_Benchmark_Red), attrs);
+        BottomNavigationBar blueBar = new BottomNavigationBar(new ContextThemeWrapper(
+                ApplicationProvider.getApplicationContext(), R.style.Theme_Benchmark_Blue),
+                attrs);
+
+        assertNotEquals(redBar.getItemIconTintList().getDefaultColor(),
+                blueBar.getItemIconTintList().getDefaultColor());
+        assertNotEquals(redBar.getItemLabelTextColor().getDefaultColor(),
+                blueBar.getItemLabelTextColor().getDefaultColor());
+    }
+
+    private BottomNavigationBar createBar(int slotCount, boolean actionLayout,
+                                          boolean flattened) {
+        return new BottomNavigationBar(context,
+                buildAttributes(slotCount, actionLayout, flattened));
+    }
+
+    private AttributeSet buildAttributes(int slotCount, boolean actionLayout,
+                                         boolean flattened) {
+        int itemCount = actionLayout ? slotCount - 1 : slotCount;
+        Robolectric.AttributeSetBuilder builder = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.navigation_menu, "@menu/" + menuName(itemCount))
+                .addAttribute(R.attr.flatten_items, String.valueOf(flattened));
+        if (actionLayout) {
+            builder.addAttribute(R.attr.action_layout, "@layout/benchmark_action_layout")
+                    .addAttribute(R.attr.action_view_attach_mode, "hump");
+        }
+        return builder.build();
+    }
+
+    private static String menuName(int itemCount) {
+        switch (itemCount) {
+            case 2:
+                return "benchmark_two_items";
+            case 3:
+                return "benchmark_three_items";
+            case 4:
+                return "benchmark_four_items";
+            case 5:
+                return "benchmark_five_items";
+            default:
+                throw new IllegalArgumentException("No menu with " + itemCount + " items.");
+        }
+    }
+
+    private static String configName(int slotCount, boolean actionLayout) {
+        return slotCount + (actionLayout ? "-slots-action" : "-slots");
+    }
+
+    private static void measure(View bar) {
+        bar.measure(View.MeasureSpec.makeMeasureSpec(BAR_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(BAR_MAX_HEIGHT, View.MeasureSpec.AT_MOST));
+    }
+
+    private static void layout(View bar) {
+        measure(bar);
+        bar.layout(0, 0, bar.getMeasuredWidth(), bar.getMeasuredHeight());
+    }
+
+    /**
+     * A canvas that draws nothing, so that only the allocations of the bar are counted and not
+     * those of the canvas shadows recording the operations.
+     */
+    private static final class DiscardingCanvas extends Canvas {
+
+        @Override
+        public boolean quickReject(float left, float top, float right, float bottom,
+                                   EdgeType type) {
+            return false;
+        }
+
+        @Override
+        public boolean quickReject(RectF rect, EdgeType type) {
+            return false;
+        }
+
+        @Override
+        public boolean quickReject(Path path, EdgeType type) {
+            return false;
+        }
+
+        @Override
+        public boolean clipPath(Path path) {
+            return true;
+        }
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        }
+
+        @Override
+        public void drawRoundRect(float left, float top, float right, float bottom, float rx,
+                                  float ry, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawText(CharSequence text, int start, int end, float x, float y,
+                             Paint paint) {
+        }
+    }
+
+    private static void dispatchTouch(View bar, int action, long time, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(time, time, action, x, y, 0);
+        bar.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
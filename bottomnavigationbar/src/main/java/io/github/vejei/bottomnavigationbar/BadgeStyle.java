@@ -0,0 +1,48 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.res.Resources;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * The paints and the metrics of the badges, resolved once and shared by all items of a bar.
+ */
+final class BadgeStyle {
+    final Paint backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    final float dotRadius;
+    final float height;
+    final float horizontalPadding;
+    // The offset from the baseline to the vertical center of the digits.
+    final float textCenterOffset;
+    int maxNumber;
+
+    BadgeStyle(@NonNull Resources resources, @ColorInt int backgroundColor,
+               @ColorInt int textColor, int maxNumber) {
+        this.maxNumber = maxNumber;
+        dotRadius = resources.getDimension(R.dimen.bnb_bottom_navigation_bar_badge_dot_radius);
+        height = resources.getDimension(R.dimen.bnb_bottom_navigation_bar_badge_height);
+        horizontalPadding = resources.getDimension(
+                R.dimen.bnb_bottom_navigation_bar_badge_horizontal_padding);
+
+        backgroundPaint.setColor(backgroundColor);
+        textPaint.setColor(textColor);
+        textPaint.density = resources.getDisplayMetrics().density;
+        textPaint.setTextSize(resources.getDimension(
+                R.dimen.bnb_bottom_navigation_bar_badge_text_size));
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        textCenterOffset = -(metrics.ascent + metrics.descent) / 2;
+    }
+
+    /** @return the text of a number badge, capped at the maximum number. */
+    @NonNull
+    String getText(int number) {
+        return (number > maxNumber) ? (maxNumber + "+") : String.valueOf(number);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.vejei.bottomnavigationbar;
+
+/**
+ * The geometry of the bar in pixels: the width and the position of the slots in either layout
+ * direction, and the size and the bezier curve of the hump around the action view.
+ */
+final class BarGeometry {
+    /** The number of coordinates written by {@link #computeHumpCurve}. */
+    static final int HUMP_CURVE_SIZE = 14;
+
+    private BarGeometry() {
+    }
+
+    /** @return the width of a slot of the bar, the last pixels of an uneven width stay unused. */
+    static int itemWidth(int barWidth, int slotCount) {
+        return (slotCount > 0) ? barWidth / slotCount : barWidth;
+    }
+
+    /**
+     * @param used the width taken by the slots before this one, in layout order
+     * @return the left edge of a slot.
+     */
+    static int slotLeft(int barWidth, int used, int slotWidth, boolean layoutLtr) {
+        return layoutLtr ? used : barWidth - used - slotWidth;
+    }
+
+    static float humpWidth(int itemWidth) {
+        return itemWidth * 1.5f;
+    }
+
+    static float humpHeight(int actionViewHeight, int itemHeight, int humpPadding,
+                            int maxHumpHeight) {
+        return Math.min(actionViewHeight - itemHeight + humpPadding, maxHumpHeight);
+    }
+
+    /**
+     * Compute the hump in the center of the top edge of the bar, as the point where the edge
+     * leaves the top of the items followed by two cubic curves, each given as its two control
+     * points and its end point.
+     *
+     * @param humpHeight the top of the items, where the hump starts and ends
+     * @param peakY the top of the hump, 0 for a fully grown hump
+     * @param out receives {@link #HUMP_CURVE_SIZE} coordinates: the start point, then the control
+     *            points and the end point of each curve.
+     */
+    static void computeHumpCurve(int barWidth, float humpWidth, float humpHeight, float peakY,
+                                 float[] out) {
+        float humpStartX = (barWidth - humpWidth) / 2f;
+        float humpWidthQuarter = humpWidth / 4f;
+
+        out[0] = humpStartX;
+        out[1] = humpHeight;
+
+        out[2] = humpStartX + humpWidthQuarter;
+        out[3] = humpHeight;
+        out[4] = humpStartX + humpWidthQuarter;
+        out[5] = peakY;
+        out[6] = humpStartX + humpWidth / 2f;
+        out[7] = peakY;
+
+        out[8] = humpStartX + humpWidthQuarter * 3;
+        out[9] = peakY;
+        out[10] = humpStartX + humpWidthQuarter * 3;
+        out[11] = humpHeight;
+        out[12] = humpStartX + humpWidth;
+        out[13] = humpHeight;
+    }
+}
@@ -1,38 +1,54 @@
 package io.github.vejei.bottomnavigationbar;
 
+import android.animation.TimeAnimator;
 import android.content.Context;
 import android.content.res.ColorStateList;
-import android.content.res.Resources;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Outline;
 import android.graphics.Path;
+import android.graphics.Rect;
 import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.util.AttributeSet;
-import android.util.TypedValue;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.Gravity;
+import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewOutlineProvider;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+import android.view.animation.PathInterpolator;
 import android.widget.LinearLayout;
-import android.widget.PopupMenu;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.Dimension;
 import androidx.annotation.DrawableRes;
+import androidx.annotation.IdRes;
 import androidx.annotation.IntDef;
-import androidx.annotation.MenuRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
-import androidx.appcompat.content.res.AppCompatResources;
+import androidx.core.os.TraceCompat;
 import androidx.core.view.ViewCompat;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class BottomNavigationBar extends ViewGroup {
     /** Label is shown on all navigation items. */
@@ -42,12 +58,13 @@ public final class BottomNavigationBar extends ViewGroup {
     public static final int LABEL_VISIBILITY_NEVER = 1;
 
     /** Label is shown on the selected navigation item. */
-    public static final int LABEL_VISIBILITY_SELECTED = 2; // TODO
+    public static final int LABEL_VISIBILITY_SELECTED = 2;
 
     /** Label is shown on the unselected navigation items. */
-    public static final int LABEL_VISIBILITY_UNSELECTED = 3; // TODO
+    public static final int LABEL_VISIBILITY_UNSELECTED = 3;
 
-    @IntDef({LABEL_VISIBILITY_ALWAYS, LABEL_VISIBILITY_NEVER})
+    @IntDef({LABEL_VISIBILITY_ALWAYS, LABEL_VISIBILITY_NEVER, LABEL_VISIBILITY_SELECTED,
+            LABEL_VISIBILITY_UNSELECTED})
     @Retention(RetentionPolicy.SOURCE)
     @interface LabelVisibilityMode {}
 
@@ -64,23 +81,68 @@ public final class BottomNavigationBar extends ViewGroup {
     @Retention(RetentionPolicy.SOURCE)
     @interface ActionViewAttachMode {}
 
+    /** The canvas is clipped to the shape of the bar before the background is drawn. */
+    public static final int BACKGROUND_SHAPE_MODE_CLIP = 0;
+
+    /**
+     * A solid color background is drawn as a shape that follows the outline of the bar, other
+     * backgrounds fall back to {@link #BACKGROUND_SHAPE_MODE_CLIP}.
+     */
+    public static final int BACKGROUND_SHAPE_MODE_DRAWABLE = 1;
+
+    @IntDef({BACKGROUND_SHAPE_MODE_CLIP, BACKGROUND_SHAPE_MODE_DRAWABLE})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface BackgroundShapeMode {}
+
+    /** Time spent in the constructor, inflating the bar from its attributes. */
+    public static final int METRIC_INFLATE = 0;
+
+    /** Time spent in {@link #onMeasure(int, int)}. */
+    public static final int METRIC_MEASURE = 1;
+
+    /** Time spent in {@link #onLayout(boolean, int, int, int, int)}. */
+    public static final int METRIC_LAYOUT = 2;
+
+    /** Time spent in {@link #draw(Canvas)}, including the children. */
+    public static final int METRIC_DRAW = 3;
+
+    /** Time spent building the navigation items for a new menu. */
+    public static final int METRIC_BUILD_ITEMS = 4;
+
+    /**
+     * Time from the dispatch to the bar of the touch that clicked an item to the call of the
+     * selection listener, the delay of the input pipeline before the dispatch excluded.
+     */
+    public static final int METRIC_CLICK_LATENCY = 5;
+
+    @IntDef({METRIC_INFLATE, METRIC_MEASURE, METRIC_LAYOUT, METRIC_DRAW, METRIC_BUILD_ITEMS,
+            METRIC_CLICK_LATENCY})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Metric {}
+
     private static final String CLASS_NAME = BottomNavigationBar.class.getSimpleName();
-    private static final int[] CHECKED_STATE_SET = {android.R.attr.state_checked};
-    private static final int[] DISABLED_STATE_SET = {-android.R.attr.state_enabled};
+    private static final String TRACE_SECTION_INFLATE = CLASS_NAME + "#inflate";
+    private static final String TRACE_SECTION_MEASURE = CLASS_NAME + "#onMeasure";
+    private static final String TRACE_SECTION_LAYOUT = CLASS_NAME + "#onLayout";
+    private static final String TRACE_SECTION_DRAW = CLASS_NAME + "#draw";
+    private static final String TRACE_SECTION_BUILD_ITEMS = CLASS_NAME + "#buildNavigationItems";
 
     private final int itemHeight;
     private final int maxHumpHeight;
 
-    private Menu menu;
-    private BottomNavigationItemView[] itemViews;
+    private NavigationMenu menu;
+    private NavigationItem[] items;
+    private final ItemIconCache itemIconCache = new ItemIconCache();
     private int selectedItemPosition = 0;
 
     private final ViewContainer actionViewContainer;
+    private PlaceholderView placeholderView;
     private boolean hasActionView;
     private View actionView;
     @ActionViewAttachMode private int actionViewAttachMode = ATTACH_MODE_EMBED;
     private int actionViewHumpPadding;
 
+    // The hump of the last measure pass, the outline is built from it at the next layout.
     private boolean humpEnabled = false;
     private float humpWidth;
     private float humpHeight;
@@ -89,6 +151,9 @@ public final class BottomNavigationBar extends ViewGroup {
     private ColorStateList itemIconTint;
     private int itemLabelTextAppearanceInactive;
     private int itemLabelTextAppearanceActive;
+    // Resolved once per bar and shared by all navigation items.
+    private LabelTextAppearance labelTextAppearanceInactive;
+    private LabelTextAppearance labelTextAppearanceActive;
 
     private ColorStateList itemLabelTextColor;
     private final ColorStateList itemLabelTextColorDefault;
@@ -98,13 +163,137 @@ public final class BottomNavigationBar extends ViewGroup {
     private ColorStateList itemRippleColor;
     private boolean itemRippleEnabled;
     private boolean itemUnboundedRipple;
+    private final ItemBackgroundFactory itemBackgroundFactory;
     @LabelVisibilityMode private int itemLabelVisibilityMode;
 
+    // The specs and the result of the last measure pass, reused until the specs change, a layout
+    // is requested by the bar or one of its children, or a child is added or removed.
+    private boolean measureCacheValid;
+    private int cachedWidthMeasureSpec;
+    private int cachedHeightMeasureSpec;
+    private int cachedMeasuredWidthAndState;
+    private int cachedMeasuredHeightAndState;
+
+    // When the items are flattened, the bar draws them itself and does their hit-testing.
+    private boolean flattenItems;
+    private int flatItemWidth;
+    private FlatNavigationItem pressedFlatItem;
+    private final int touchSlop;
+    // Exposes the flattened items to accessibility services and to the keyboard.
+    private FlatItemAccessibilityHelper flatItemAccessibilityHelper;
+
+    @BackgroundShapeMode private int backgroundShapeMode = BACKGROUND_SHAPE_MODE_DRAWABLE;
     private int canvasSaveCount = 0;
     private final Path outlinePath = new Path();
 
+    // The geometry that the outline path was last built from, the path is only rebuilt when one
+    // of them changes.
+    private int outlineWidth = -1;
+    private int outlineHeight = -1;
+    private boolean outlineHumpEnabled;
+    private float outlineHumpWidth;
+    private float outlineHumpHeight;
+    private final float[] humpCurve = new float[BarGeometry.HUMP_CURVE_SIZE];
+
+    // The badges by menu item id, either ItemContent.BADGE_DOT or a number, kept across rebuilds
+    // of the items.
+    private final SparseIntArray itemBadges = new SparseIntArray();
+    private final BadgeStyle badgeStyle;
+
+    // Badges posted from any thread, the latest value per item id. They are swapped with the
+    // buffer and applied once per frame on the main thread.
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object badgeLock = new Object();
+    private SparseIntArray pendingBadges = new SparseIntArray();
+    private SparseIntArray badgeUpdateBuffer = new SparseIntArray();
+    private boolean badgeUpdateScheduled;
+    private final Runnable applyPendingBadges = new Runnable() {
+        @Override
+        public void run() {
+            SparseIntArray updates;
+            synchronized (badgeLock) {
+                updates = pendingBadges;
+                pendingBadges = badgeUpdateBuffer;
+                badgeUpdateScheduled = false;
+            }
+            badgeUpdateBuffer = updates;
+            for (int i = 0; i < updates.size(); i++) {
+                setItemBadge(updates.keyAt(i), updates.valueAt(i));
+            }
+            updates.clear();
+        }
+    };
+    // Posting to a view that is not attached from another thread is lost before Android 7.0, the
+    // update is scheduled on the main thread, at the next frame when the bar is attached and
+    // right away otherwise.
+    private final Runnable scheduleBadgeUpdate = new Runnable() {
+        @Override
+        public void run() {
+            if (ViewCompat.isAttachedToWindow(BottomNavigationBar.this)) {
+                ViewCompat.postOnAnimation(BottomNavigationBar.this, applyPendingBadges);
+            } else {
+                applyPendingBadges.run();
+            }
+        }
+    };
+
+    // The hump and the colors of the selection are animated by one animator for the whole bar.
+    private static final Interpolator TRANSITION_INTERPOLATOR =
+            new PathInterpolator(0.4f, 0f, 0.2f, 1f);
+    private long transitionDuration;
+    private TimeAnimator transitionAnimator;
+    private float displayedHumpHeight;
+    private boolean humpTransitionRunning;
+    private long humpTransitionStartTime;
+    private float humpTransitionStartHeight;
+
+    // Item property changes made between beginUpdate() and endUpdate() are collected here and
+    // applied to the items in one pass.
+    private static final int ITEM_CHANGE_ICON_SIZE = 1;
+    private static final int ITEM_CHANGE_ICON_TINT = 1 << 1;
+    private static final int ITEM_CHANGE_LABEL_TEXT_APPEARANCE = 1 << 2;
+    private static final int ITEM_CHANGE_LABEL_TEXT_COLOR = 1 << 3;
+    private static final int ITEM_CHANGE_CONTENT_SPACING = 1 << 4;
+    private static final int ITEM_CHANGE_BACKGROUND = 1 << 5;
+    private static final int ITEM_CHANGE_LABEL_VISIBILITY_MODE = 1 << 6;
+    private static final int ITEM_CHANGE_BADGE_STYLE = 1 << 7;
+    private int updateNesting = 0;
+    private int pendingItemChanges = 0;
+
+    private final NavigationMenu.Callback menuCallback = new NavigationMenu.Callback() {
+        @Override
+        public void onItemChanged(@NonNull NavigationMenuItem item) {
+            if (items == null) {
+                return;
+            }
+            for (NavigationItem navigationItem : items) {
+                if (navigationItem.getMenuItem() == item) {
+                    navigationItem.updateView(item);
+                    return;
+                }
+            }
+        }
+    };
+
+    private final OnClickListener itemClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            performItemClick((BottomNavigationItemView) v);
+        }
+    };
+
     private OnNavigationItemSelectedListener itemSelectedListener;
     private OnNavigationItemReselectedListener itemReselectedListener;
+    private OnNavigationItemPreselectListener itemPreselectListener;
+    // The item the current touch went down on, until the touch leaves it, ends or is canceled.
+    private NavigationItem preselectedItem;
+
+    // Instrumentation is off while there is no listener, and then costs a null check per pass.
+    private InstrumentationListener instrumentationListener;
+    private final long inflateDurationNanos;
+    private int itemRebuildCount;
+    // System.nanoTime() when the last ACTION_UP reached the bar, 0 once reported.
+    private long lastUpDispatchNanos;
 
     /**
      * The maximum number of items supported by the bar.
@@ -130,9 +319,38 @@ public final class BottomNavigationBar extends ViewGroup {
         this(context, attrs, defStyleAttr, R.style.BottomNavigationBar);
     }
 
-    public BottomNavigationBar(final Context context, AttributeSet attrs, int defStyleAttr,
+    public BottomNavigationBar(Context context, AttributeSet attrs, int defStyleAttr,
                                int defStyleRes) {
+        this(context, attrs, defStyleAttr, defStyleRes, null);
+    }
+
+    /**
+     * Create a bar from a config prepared beforehand, possibly on a background thread. Only the
+     * action layout is inflated, the style is not resolved and the menu is not parsed again.
+     *
+     * @param context the context, with the theme the config was prepared with
+     * @param config the prepared config
+     * @see BottomNavigationBarConfig#prepareAsync
+     */
+    public BottomNavigationBar(@NonNull Context context,
+                               @NonNull BottomNavigationBarConfig config) {
+        this(context, null, config.defStyleAttr, config.defStyleRes, config);
+    }
+
+    private BottomNavigationBar(final Context context, AttributeSet attrs, int defStyleAttr,
+                                int defStyleRes, @Nullable BottomNavigationBarConfig config) {
         super(context, attrs, defStyleAttr, defStyleRes);
+        // Inflation happens before a listener can be set, so it is always timed and reported once
+        // a listener is set. It is only traced while a trace is being recorded.
+        boolean traceInflate = TraceCompat.isEnabled();
+        if (traceInflate) {
+            TraceCompat.beginSection(TRACE_SECTION_INFLATE);
+        }
+        long inflateStartNanos = System.nanoTime();
+
+        if (config == null) {
+            config = BottomNavigationBarConfig.resolve(context, attrs, defStyleAttr, defStyleRes);
+        }
 
         setWillNotDraw(false);
 
@@ -147,90 +365,121 @@ public final class BottomNavigationBar extends ViewGroup {
 
         actionViewContainer = new ViewContainer(context);
 
-        Resources resources = getResources();
-        LayoutInflater layoutInflater = LayoutInflater.from(context);
+        itemHeight = config.itemHeight;
+        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        maxHumpHeight = config.maxHumpHeight;
+        itemLabelTextColorDefault = config.itemLabelTextColorDefault;
 
-        itemHeight = resources.getDimensionPixelSize(R.dimen.bnb_bottom_navigation_bar_height);
-        maxHumpHeight = resources.getDimensionPixelOffset(
-                R.dimen.bnb_bottom_navigation_bar_max_hump_height);
-        itemLabelTextColorDefault = createDefaultColorStateList();
-
-        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.BottomNavigationBar,
-                defStyleAttr, defStyleRes);
-
-        hasActionView = a.hasValue(R.styleable.BottomNavigationBar_action_layout);
+        hasActionView = (config.actionLayoutRes != 0);
         if (hasActionView) {
-            int defaultHumpPadding = resources.getDimensionPixelSize(
-                    R.dimen.bnb_bottom_navigation_bar_action_view_hump_padding);
-
-            actionView = layoutInflater.inflate(
-                    a.getResourceId(R.styleable.BottomNavigationBar_action_layout, 0),
+            actionView = LayoutInflater.from(context).inflate(config.actionLayoutRes,
                     actionViewContainer);
             actionView.setClickable(true);
-            actionViewAttachMode = a.getInteger(
-                    R.styleable.BottomNavigationBar_action_view_attach_mode, ATTACH_MODE_EMBED);
-            actionViewHumpPadding = a.getDimensionPixelSize(
-                    R.styleable.BottomNavigationBar_action_view_hump_padding, defaultHumpPadding);
+            actionViewAttachMode = config.actionViewAttachMode;
+            actionViewHumpPadding = config.actionViewHumpPadding;
         }
 
-        itemIconSize = a.getDimensionPixelSize(R.styleable.BottomNavigationBar_item_icon_size,
-                resources.getDimensionPixelSize(R.dimen.bnb_bottom_navigation_bar_icon_size));
-        if (a.hasValue(R.styleable.BottomNavigationBar_item_icon_tint)) {
-            itemIconTint = a.getColorStateList(R.styleable.BottomNavigationBar_item_icon_tint);
-        } else {
-            itemIconTint = createDefaultColorStateList();
-        }
-        if (a.hasValue(R.styleable.BottomNavigationBar_item_label_text_appearance_inactive)) {
-            itemLabelTextAppearanceInactive = a.getResourceId(
-                    R.styleable.BottomNavigationBar_item_label_text_appearance_inactive, 0);
+        itemIconSize = config.itemIconSize;
+        itemIconTint = config.itemIconTint;
+        itemLabelTextAppearanceInactive = config.itemLabelTextAppearanceInactive;
+        itemLabelTextAppearanceActive = config.itemLabelTextAppearanceActive;
+        labelTextAppearanceInactive = config.labelTextAppearanceInactive;
+        labelTextAppearanceActive = config.labelTextAppearanceActive;
+        itemLabelTextColor = config.itemLabelTextColor;
+        itemContentSpacing = config.itemContentSpacing;
+
+        itemBackgroundRes = config.itemBackgroundRes;
+        itemRippleColor = config.itemRippleColor;
+        itemRippleEnabled = config.itemRippleEnabled;
+        itemUnboundedRipple = config.itemUnboundedRipple;
+        itemBackgroundFactory = new ItemBackgroundFactory(context);
+        itemBackgroundFactory.setBackgroundRes(itemBackgroundRes);
+        itemBackgroundFactory.setRippleColor(itemRippleColor);
+        itemBackgroundFactory.setRippleEnabled(itemRippleEnabled);
+        itemBackgroundFactory.setUnboundedRipple(itemUnboundedRipple);
+        itemLabelVisibilityMode = config.itemLabelVisibilityMode;
+
+        badgeStyle = new BadgeStyle(getResources(), config.badgeBackgroundColor,
+                config.badgeTextColor, config.badgeMaxNumber);
+
+        flattenItems = config.flattenItems;
+        updateFlatItemAccessibility();
+        transitionDuration = config.transitionDuration;
+
+        if (config.hasElevation) {
+            setElevation(config.elevation);
         }
-        if (a.hasValue(R.styleable.BottomNavigationBar_item_label_text_appearance_active)) {
-            itemLabelTextAppearanceActive = a.getResourceId(
-                    R.styleable.BottomNavigationBar_item_label_text_appearance_active, 0);
-        }
-        if (a.hasValue(R.styleable.BottomNavigationBar_item_label_text_color)) {
-            itemLabelTextColor = a.getColorStateList(
-                    R.styleable.BottomNavigationBar_item_label_text_color);
+        if (getBackground() == null) {
+            setBackground(new ColorDrawable(Color.WHITE));
         }
-        itemContentSpacing = a.getDimensionPixelSize(
-                R.styleable.BottomNavigationBar_item_content_spacing,
-                resources.getDimensionPixelSize(
-                        R.dimen.bnb_bottom_navigation_bar_item_content_spacing));
+        backgroundShapeMode = config.backgroundShapeMode;
+        applyBackgroundShapeMode();
 
-        itemBackgroundRes = a.getResourceId(R.styleable.BottomNavigationBar_item_background,
-                0);
-        if (a.hasValue(R.styleable.BottomNavigationBar_item_ripple_color)) {
-            itemRippleColor = a.getColorStateList(R.styleable.BottomNavigationBar_item_ripple_color);
+        NavigationMenu configMenu = config.newMenu(context);
+        if (configMenu != null) {
+            setMenu(configMenu);
         }
-        itemRippleEnabled = a.getBoolean(R.styleable.BottomNavigationBar_item_ripple_enabled,
-                true);
-        itemUnboundedRipple = a.getBoolean(R.styleable.BottomNavigationBar_item_unbounded_ripple,
-                true);
-        itemLabelVisibilityMode = a.getInteger(
-                R.styleable.BottomNavigationBar_item_label_visibility_mode, LABEL_VISIBILITY_ALWAYS);
 
-        if (a.hasValue(R.styleable.BottomNavigationBar_elevation)) {
-            setElevation(a.getDimensionPixelSize(R.styleable.BottomNavigationBar_elevation,
-                    0));
-        }
-        if (getBackground() == null) {
-            setBackground(new ColorDrawable(Color.WHITE));
+        inflateDurationNanos = System.nanoTime() - inflateStartNanos;
+        if (traceInflate) {
+            TraceCompat.endSection();
         }
+    }
 
-        if (a.hasValue(R.styleable.BottomNavigationBar_navigation_menu)) {
-            inflateMenu(a.getResourceId(R.styleable.BottomNavigationBar_navigation_menu,
-                    0));
-        }
+    @Override
+    public void requestLayout() {
+        // Called by the bar itself and by a child whose size may have changed, as long as the bar
+        // has no layout requested yet. Children are checked again in measureBar for the others.
+        measureCacheValid = false;
+        super.requestLayout();
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        measureCacheValid = false;
+    }
 
-        a.recycle();
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        measureCacheValid = false;
+    }
+
+    /**
+     * @return true if a child has a layout requested, a request made while the bar already had
+     * one does not reach {@link #requestLayout()}.
+     */
+    private boolean isChildLayoutRequested() {
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            if (getChildAt(i).isLayoutRequested()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long startNanos = beginSection(TRACE_SECTION_MEASURE);
+        measureBar(widthMeasureSpec, heightMeasureSpec);
+        endSection(METRIC_MEASURE, startNanos);
+    }
+
+    private void measureBar(int widthMeasureSpec, int heightMeasureSpec) {
+        if (measureCacheValid && (widthMeasureSpec == cachedWidthMeasureSpec)
+                && (heightMeasureSpec == cachedHeightMeasureSpec) && !isChildLayoutRequested()) {
+            // Nothing changed since the last pass, the children keep their measured sizes.
+            setMeasuredDimension(cachedMeasuredWidthAndState, cachedMeasuredHeightAndState);
+            return;
+        }
+
         int width = MeasureSpec.getSize(widthMeasureSpec);
         int childCount = getChildCount();
 
-        int itemWidth = width / (menu.hasVisibleItems() ? childCount : 1);
+        int slotCount = childCount + ((flattenItems && items != null) ? items.length : 0);
+        int itemWidth = BarGeometry.itemWidth(width,
+                (menu != null && menu.hasVisibleItems()) ? slotCount : 1);
 
         // The sum of the widths of all children.
         int childrenWidth = 0;
@@ -282,10 +531,9 @@ public final class BottomNavigationBar extends ViewGroup {
                     humpEnabled = ((child.getMeasuredHeight() > itemHeight)
                             && (actionViewAttachMode == ATTACH_MODE_HUMP));
                     if (humpEnabled) {
-                        humpWidth = itemWidth * 1.5f;
-                        humpHeight = Math.min(
-                                child.getMeasuredHeight() - itemHeight + actionViewHumpPadding,
-                                maxHumpHeight);
+                        humpWidth = BarGeometry.humpWidth(itemWidth);
+                        humpHeight = BarGeometry.humpHeight(child.getMeasuredHeight(),
+                                itemHeight, actionViewHumpPadding, maxHumpHeight);
                     }
                 } else {
                     child.measure(itemWidthSpec, itemHeightSpec);
@@ -308,81 +556,124 @@ public final class BottomNavigationBar extends ViewGroup {
             barHeightSpec = MeasureSpec.makeMeasureSpec(barHeight, MeasureSpec.EXACTLY);
         }
 
+        flatItemWidth = itemWidth;
+        if (flattenItems && items != null) {
+            for (NavigationItem item : items) {
+                if (((FlatNavigationItem) item).isVisible()) {
+                    childrenWidth += itemWidth;
+                }
+            }
+        }
+
         barWidthSpec = MeasureSpec.makeMeasureSpec(childrenWidth, MeasureSpec.EXACTLY);
         setMeasuredDimension(resolveSizeAndState(childrenWidth, barWidthSpec, 0),
                 resolveSizeAndState(barHeight, barHeightSpec, 0));
+
+        cachedWidthMeasureSpec = widthMeasureSpec;
+        cachedHeightMeasureSpec = heightMeasureSpec;
+        cachedMeasuredWidthAndState = getMeasuredWidthAndState();
+        cachedMeasuredHeightAndState = getMeasuredHeightAndState();
+        measureCacheValid = true;
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        int childCount = getChildCount();
-        int width = r - l;
-        int height = b - t;
+        long startNanos = beginSection(TRACE_SECTION_LAYOUT);
+        // Measuring only records the hump, the outline and its transition follow the final size,
+        // and the hump may change without changing the size of the bar.
+        updateOutlinePath(r - l, b - t);
+        layoutBar(r - l, b - t);
+        endSection(METRIC_LAYOUT, startNanos);
+    }
+
+    private void layoutBar(int width, int height) {
         int used = 0;
 
+        if (flattenItems && items != null) {
+            layoutFlatItems(width, height);
+            return;
+        }
+
+        int childCount = getChildCount();
         for (int i = 0; i < childCount; i++) {
-            int childLeft;
-            int childTop;
-            int childRight;
-            int childBottom;
+            used = layoutChild(getChildAt(i), used, width, height);
+        }
+    }
 
-            View child = getChildAt(i);
-            if (child.getVisibility() == View.GONE) {
-                continue;
-            }
+    /**
+     * Lay out the flattened items and the children in the same slots the item views would take:
+     * the left items, the action view, the right items, then the placeholder.
+     */
+    private void layoutFlatItems(int width, int height) {
+        int leftItemCount = hasActionView ? computeItemCount() / 2 : -1;
+        int used = 0;
 
-            if (isLayoutLtr(this)) {
-                childLeft = used;
-                childRight = child.getMeasuredWidth() + used;
-            } else {
-                childLeft = width - used - child.getMeasuredWidth();
-                childRight = width - used;
+        for (int i = 0; i <= items.length; i++) {
+            if (i == leftItemCount) {
+                used = layoutChild(actionViewContainer, used, width, height);
+            }
+            if (i == items.length) {
+                break;
             }
-            childTop = height - itemHeight;
-            childBottom = height;
 
-            if (child instanceof ViewContainer) {
-                int childHeight = child.getMeasuredHeight();
-                childTop = (height - childHeight) / 2;
-                childBottom = childTop + childHeight;
+            FlatNavigationItem item = (FlatNavigationItem) items[i];
+            if (!item.isVisible()) {
+                continue;
             }
+            int itemLeft = BarGeometry.slotLeft(width, used, flatItemWidth, isLayoutLtr(this));
+            item.layout(itemLeft, height - itemHeight, itemLeft + flatItemWidth, height);
+            used += flatItemWidth;
+        }
+
+        if (placeholderView != null && placeholderView.getParent() == this) {
+            layoutChild(placeholderView, used, width, height);
+        }
+        flatItemAccessibilityHelper.invalidateRoot();
+    }
+
+    /**
+     * Lay out the child in the slot that starts after the given used width.
+     *
+     * @return the used width including the child.
+     */
+    private int layoutChild(View child, int used, int width, int height) {
+        int childLeft;
+        int childTop;
+        int childRight;
+        int childBottom;
+
+        if (child.getVisibility() == View.GONE) {
+            return used;
+        }
 
-            child.layout(childLeft, childTop, childRight, childBottom);
+        childLeft = BarGeometry.slotLeft(width, used, child.getMeasuredWidth(), isLayoutLtr(this));
+        childRight = childLeft + child.getMeasuredWidth();
+        childTop = height - itemHeight;
+        childBottom = height;
 
-            used += child.getMeasuredWidth();
+        if (child instanceof ViewContainer) {
+            int childHeight = child.getMeasuredHeight();
+            childTop = (height - childHeight) / 2;
+            childBottom = childTop + childHeight;
         }
+
+        child.layout(childLeft, childTop, childRight, childBottom);
+
+        return used + child.getMeasuredWidth();
     }
 
     @Override
     public void draw(Canvas canvas) {
-        canvasSaveCount = canvas.save();
-        outlinePath.reset();
-
-        if (!humpEnabled) {
-            // No hump, add regular rectangle to path.
-            outlinePath.addRect(0, getHeight() - itemHeight, getWidth(), getHeight(),
-                    Path.Direction.CW);
+        if (getBackground() instanceof HumpShapeDrawable) {
+            // The background draws the shape itself, nothing to clip.
+            canvasSaveCount = 0;
         } else {
-            // There is hump in the center, add bezier curve to the path.
-            int barWidth = getWidth();
-            int barHeight = getHeight();
-            float humpStartX = (barWidth - humpWidth) / 2f;
-            float humpWidthQuarter = humpWidth / 4f;
-
-            outlinePath.moveTo(0, humpHeight);
-            outlinePath.lineTo(humpStartX, humpHeight);
-            outlinePath.cubicTo(humpStartX + humpWidthQuarter, humpHeight,
-                    humpStartX + humpWidthQuarter, 0,
-                    humpStartX + humpWidth / 2f, 0);
-            outlinePath.cubicTo(humpStartX + humpWidthQuarter * 3, 0,
-                    humpStartX + humpWidthQuarter * 3, humpHeight,
-                    humpStartX + humpWidth, humpHeight);
-            outlinePath.lineTo(barWidth, humpHeight);
-            outlinePath.lineTo(barWidth, barHeight);
-            outlinePath.lineTo(0, barHeight);
-        }
-        canvas.clipPath(outlinePath); // Clip the canvas before drawing the background.
+            canvasSaveCount = canvas.save();
+            canvas.clipPath(outlinePath); // Clip the canvas before drawing the background.
+        }
+        long startNanos = beginSection(TRACE_SECTION_DRAW);
         super.draw(canvas);
+        endSection(METRIC_DRAW, startNanos);
     }
 
     @Override
@@ -390,6 +681,450 @@ public final class BottomNavigationBar extends ViewGroup {
         if (canvasSaveCount != 0) {
             canvas.restoreToCount(canvasSaveCount);
         }
+        if (flattenItems && items != null) {
+            for (NavigationItem item : items) {
+                ((FlatNavigationItem) item).draw(canvas);
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!flattenItems || items == null) {
+            return super.onTouchEvent(event);
+        }
+
+        float x = event.getX();
+        float y = event.getY();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                pressedFlatItem = findFlatItemAt(x, y);
+                if (pressedFlatItem == null) {
+                    return super.onTouchEvent(event);
+                }
+                pressedFlatItem.setHotspot(x, y);
+                pressedFlatItem.setPressed(true);
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (pressedFlatItem != null) {
+                    pressedFlatItem.setHotspot(x, y);
+                    if (!pressedFlatItem.contains(x, y, touchSlop)) {
+                        cancelFlatItemPress();
+                    }
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (pressedFlatItem != null) {
+                    FlatNavigationItem clickedItem = pressedFlatItem;
+                    cancelFlatItemPress();
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    performItemClick(clickedItem);
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                cancelFlatItemPress();
+                return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        if (flattenItems && flatItemAccessibilityHelper.dispatchHoverEvent(event)) {
+            return true;
+        }
+        return super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        // Only the bar itself moves the focus between the items, not a focused action view.
+        if (flattenItems && isFocused() && flatItemAccessibilityHelper.dispatchKeyEvent(event)) {
+            return true;
+        }
+        return super.dispatchKeyEvent(event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction,
+                                  @Nullable Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        if (flattenItems) {
+            flatItemAccessibilityHelper.onFocusChanged(gainFocus, direction,
+                    previouslyFocusedRect);
+        }
+    }
+
+    /** @return the items when they are flattened, null otherwise. */
+    @Nullable
+    NavigationItem[] getFlatItems() {
+        return flattenItems ? items : null;
+    }
+
+    /**
+     * Expose the flattened items as virtual views of the bar, which takes the keyboard focus for
+     * them. Item views expose themselves.
+     */
+    private void updateFlatItemAccessibility() {
+        if (flattenItems) {
+            if (flatItemAccessibilityHelper == null) {
+                flatItemAccessibilityHelper = new FlatItemAccessibilityHelper(this);
+            }
+            ViewCompat.setAccessibilityDelegate(this, flatItemAccessibilityHelper);
+        } else if (flatItemAccessibilityHelper != null) {
+            ViewCompat.setAccessibilityDelegate(this, null);
+        }
+        setFocusable(flattenItems);
+    }
+
+    @Nullable
+    private FlatNavigationItem findFlatItemAt(float x, float y) {
+        for (NavigationItem item : items) {
+            FlatNavigationItem flatItem = (FlatNavigationItem) item;
+            if (flatItem.isVisible() && flatItem.isEnabled() && flatItem.contains(x, y, 0)) {
+                return flatItem;
+            }
+        }
+        return null;
+    }
+
+    private void cancelFlatItemPress() {
+        if (pressedFlatItem != null) {
+            pressedFlatItem.setPressed(false);
+            pressedFlatItem = null;
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        if (flattenItems && items != null) {
+            for (NavigationItem item : items) {
+                if (((FlatNavigationItem) item).isBackground(who)) {
+                    return true;
+                }
+            }
+        }
+        return super.verifyDrawable(who);
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        if (flattenItems && items != null) {
+            for (NavigationItem item : items) {
+                ((FlatNavigationItem) item).jumpDrawablesToCurrentState();
+            }
+        }
+    }
+
+    /**
+     * Rebuild the outline path and the view outline if the geometry of the bar has changed since
+     * the last time they were built.
+     */
+    private void updateOutlinePath(int width, int height) {
+        boolean changed = (width != outlineWidth) || (height != outlineHeight)
+                || (humpEnabled != outlineHumpEnabled)
+                || (humpEnabled && ((humpWidth != outlineHumpWidth)
+                        || (humpHeight != outlineHumpHeight)));
+        if (!changed) {
+            return;
+        }
+
+        // A hump that appears or changes its height grows from the one drawn so far, a hump that
+        // disappears goes at once along with the height of the bar.
+        boolean humpChanged = humpEnabled
+                && (!outlineHumpEnabled || (humpHeight != outlineHumpHeight));
+        float humpStartHeight = outlineHumpEnabled ? displayedHumpHeight : 0;
+
+        outlineWidth = width;
+        outlineHeight = height;
+        outlineHumpEnabled = humpEnabled;
+        outlineHumpWidth = humpWidth;
+        outlineHumpHeight = humpHeight;
+
+        if (humpChanged && canRunTransitions()) {
+            displayedHumpHeight = humpStartHeight;
+            humpTransitionStartHeight = humpStartHeight;
+            humpTransitionStartTime = AnimationUtils.currentAnimationTimeMillis();
+            humpTransitionRunning = true;
+            startTransitions();
+        } else if (!humpTransitionRunning || !humpEnabled) {
+            displayedHumpHeight = humpHeight;
+            humpTransitionRunning = false;
+        }
+        buildOutlinePath();
+    }
+
+    /** Build the outline path from the outline geometry and the hump height drawn so far. */
+    private void buildOutlinePath() {
+        int width = outlineWidth;
+        int height = outlineHeight;
+
+        outlinePath.reset();
+        if (!outlineHumpEnabled) {
+            // No hump, add regular rectangle to path.
+            outlinePath.addRect(0, height - itemHeight, width, height, Path.Direction.CW);
+        } else {
+            // There is hump in the center, add bezier curve to the path.
+            float[] curve = humpCurve;
+            BarGeometry.computeHumpCurve(width, outlineHumpWidth, outlineHumpHeight,
+                    outlineHumpHeight - displayedHumpHeight, curve);
+
+            outlinePath.moveTo(0, outlineHumpHeight);
+            outlinePath.lineTo(curve[0], curve[1]);
+            outlinePath.cubicTo(curve[2], curve[3], curve[4], curve[5], curve[6], curve[7]);
+            outlinePath.cubicTo(curve[8], curve[9], curve[10], curve[11], curve[12], curve[13]);
+            outlinePath.lineTo(width, outlineHumpHeight);
+            outlinePath.lineTo(width, height);
+            outlinePath.lineTo(0, height);
+        }
+        invalidateOutline();
+        invalidate();
+    }
+
+    private boolean canRunTransitions() {
+        return transitionDuration > 0 && ViewCompat.isAttachedToWindow(this)
+                && ViewCompat.isLaidOut(this);
+    }
+
+    /** Start the animator that drives all transitions of the bar, unless it is running. */
+    private void startTransitions() {
+        if (transitionAnimator == null) {
+            transitionAnimator = new TimeAnimator();
+            transitionAnimator.setTimeListener(new TimeAnimator.TimeListener() {
+                @Override
+                public void onTimeUpdate(TimeAnimator animation, long totalTime, long deltaTime) {
+                    if (!stepTransitions(AnimationUtils.currentAnimationTimeMillis())) {
+                        animation.end();
+                    }
+                }
+            });
+        }
+        if (!transitionAnimator.isStarted()) {
+            transitionAnimator.start();
+        }
+    }
+
+    /**
+     * Advance the hump and the color transitions to the given time. A frame only rebuilds the
+     * outline and redraws, the layout of the bar is never requested.
+     *
+     * @return whether a transition is still running.
+     */
+    private boolean stepTransitions(long now) {
+        boolean running = false;
+
+        if (humpTransitionRunning) {
+            float fraction = getTransitionFraction(humpTransitionStartTime, now);
+            displayedHumpHeight = humpTransitionStartHeight
+                    + (outlineHumpHeight - humpTransitionStartHeight) * fraction;
+            humpTransitionRunning = (fraction < 1);
+            running = humpTransitionRunning;
+            buildOutlinePath();
+        }
+
+        if (items != null) {
+            for (NavigationItem item : items) {
+                ItemContent content = item.getContent();
+                if (!content.isSelectionTransitionRunning()) {
+                    continue;
+                }
+                float fraction = getTransitionFraction(
+                        content.getSelectionTransitionStartTime(), now);
+                if (fraction < 1) {
+                    content.setSelectionTransitionFraction(fraction);
+                    running = true;
+                } else {
+                    content.endSelectionTransition();
+                }
+            }
+        }
+        return running;
+    }
+
+    private float getTransitionFraction(long startTime, long now) {
+        float progress = Math.min(1f, (float) (now - startTime) / transitionDuration);
+        return (progress < 1) ? TRANSITION_INTERPOLATOR.getInterpolation(progress) : 1;
+    }
+
+    /** Jump all transitions to their end. */
+    private void endTransitions() {
+        if (transitionAnimator != null) {
+            transitionAnimator.cancel();
+        }
+        if (humpTransitionRunning) {
+            humpTransitionRunning = false;
+            displayedHumpHeight = outlineHumpHeight;
+            buildOutlinePath();
+        }
+        if (items != null) {
+            for (NavigationItem item : items) {
+                item.getContent().endSelectionTransition();
+            }
+        }
+    }
+
+    /**
+     * Swap the background between a {@link ColorDrawable} and a {@link HumpShapeDrawable} of the
+     * same color, according to the current background shape mode.
+     */
+    private void applyBackgroundShapeMode() {
+        Drawable background = getBackground();
+        if (backgroundShapeMode == BACKGROUND_SHAPE_MODE_DRAWABLE) {
+            if (background instanceof ColorDrawable) {
+                setBackground(background);
+            }
+        } else if (background instanceof HumpShapeDrawable) {
+            setBackground(new ColorDrawable(((HumpShapeDrawable) background).getColor()));
+        }
+    }
+
+    @Override
+    public void setBackgroundColor(int color) {
+        Drawable background = getBackground();
+        if (background instanceof HumpShapeDrawable) {
+            ((HumpShapeDrawable) background).setColor(color);
+        } else {
+            super.setBackgroundColor(color);
+        }
+    }
+
+    /**
+     * Every way of setting the background ends here, {@link #setBackground(Drawable)} and
+     * {@link #setBackgroundResource(int)} included, so that a solid color is turned into a
+     * shape whatever way it is set. The background tint is applied to the shape by the view.
+     */
+    @SuppressWarnings("deprecation")
+    @Deprecated
+    @Override
+    public void setBackgroundDrawable(Drawable background) {
+        // The view sets its background before the path exists, the mode is applied afterwards.
+        if (outlinePath != null && backgroundShapeMode == BACKGROUND_SHAPE_MODE_DRAWABLE
+                && background instanceof ColorDrawable) {
+            background = new HumpShapeDrawable(outlinePath,
+                    ((ColorDrawable) background).getColor());
+        }
+        super.setBackgroundDrawable(background);
+    }
+
+    /**
+     * @return whether the navigation items are drawn by the bar itself.
+     * @see #setFlattenItems(boolean)
+     */
+    public boolean getFlattenItems() {
+        return flattenItems;
+    }
+
+    /**
+     * Set whether the navigation items are drawn by the bar itself instead of by one child view
+     * per item. Flattened items cost no views, measure passes or display lists of their own, the
+     * bar does their hit-testing and draws their ripples. Only the action view stays a child.
+     *
+     * <p>Flattened items are exposed to accessibility services as virtual views, and the bar takes
+     * the keyboard focus to move it between them. They cannot be found with
+     * {@link #findViewById(int)}.</p>
+     *
+     * @param flattenItems true to draw the items in the bar
+     */
+    public void setFlattenItems(boolean flattenItems) {
+        if (this.flattenItems == flattenItems) {
+            return;
+        }
+        cancelFlatItemPress();
+        this.flattenItems = flattenItems;
+        updateFlatItemAccessibility();
+        if (menu != null) {
+            // The items of the previous mode cannot be reused.
+            items = null;
+            buildNavigationItems();
+        }
+    }
+
+    /**
+     * @return the duration of the hump and selection transitions, in milliseconds.
+     * @see #setTransitionDuration(long)
+     */
+    public long getTransitionDuration() {
+        return transitionDuration;
+    }
+
+    /**
+     * Set the duration of the transitions that grow the hump, and that fade the colors and the
+     * labels of the items when the selection changes. All transitions of the bar are driven by a
+     * single animator and only redraw the bar, 0 turns them off.
+     *
+     * @param duration the duration in milliseconds
+     */
+    public void setTransitionDuration(long duration) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("The transition duration must not be negative.");
+        }
+        transitionDuration = duration;
+        if (duration == 0) {
+            endTransitions();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        endTransitions();
+        itemIconCache.clear();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        // Badges posted but not applied yet are part of the state.
+        applyPendingBadges.run();
+
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.selectedItemPosition = selectedItemPosition;
+        state.actionViewAttachMode = actionViewAttachMode;
+        int badgeCount = itemBadges.size();
+        state.badgeItemIds = new int[badgeCount];
+        state.badges = new int[badgeCount];
+        for (int i = 0; i < badgeCount; i++) {
+            state.badgeItemIds[i] = itemBadges.keyAt(i);
+            state.badges[i] = itemBadges.valueAt(i);
+        }
+        return state;
+    }
+
+    /**
+     * Restore the selection, the badges and the attach mode. The state is restored before the
+     * first measure, the existing items are only updated, so the bar is laid out once in its
+     * restored state.
+     */
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        setActionViewAttachMode(savedState.actionViewAttachMode);
+
+        itemBadges.clear();
+        for (int i = 0; i < savedState.badgeItemIds.length; i++) {
+            itemBadges.put(savedState.badgeItemIds[i], savedState.badges[i]);
+        }
+        if (items != null) {
+            for (NavigationItem item : items) {
+                MenuItem menuItem = item.getMenuItem();
+                if (menuItem != null) {
+                    item.getContent().setBadge(
+                            itemBadges.get(menuItem.getItemId(), ItemContent.BADGE_NONE));
+                }
+            }
+        }
+
+        int previousPosition = selectedItemPosition;
+        if (menu == null || savedState.selectedItemPosition < menu.size()) {
+            selectedItemPosition = savedState.selectedItemPosition;
+            updateSelectedItem(previousPosition);
+        }
     }
 
     @Override
@@ -431,33 +1166,31 @@ public final class BottomNavigationBar extends ViewGroup {
         }
     }
 
-    @Nullable
-    private ColorStateList createDefaultColorStateList() {
-        final TypedValue value = new TypedValue();
-        if (!getContext().getTheme().resolveAttribute(android.R.attr.textColorSecondary, value,
-                true)) {
-            return null;
+    /**
+     * Resolve the given text appearance, reusing the inactive or active one when they come from
+     * the same style, which is the case with the default style.
+     */
+    private LabelTextAppearance resolveLabelTextAppearance(@StyleRes int textAppearanceRes) {
+        if (labelTextAppearanceInactive != null
+                && labelTextAppearanceInactive.resId == textAppearanceRes) {
+            return labelTextAppearanceInactive;
         }
-        ColorStateList baseColor = AppCompatResources.getColorStateList(getContext(),
-                value.resourceId);
-        if (!getContext().getTheme().resolveAttribute(androidx.appcompat.R.attr.colorPrimary,
-                value, true)) {
-            return null;
+        if (labelTextAppearanceActive != null
+                && labelTextAppearanceActive.resId == textAppearanceRes) {
+            return labelTextAppearanceActive;
         }
-        int colorPrimary = value.data;
-        int defaultColor = baseColor.getDefaultColor();
-        return new ColorStateList(
-                new int[][] {DISABLED_STATE_SET, CHECKED_STATE_SET, EMPTY_STATE_SET},
-                new int[] {
-                        baseColor.getColorForState(DISABLED_STATE_SET, defaultColor), colorPrimary,
-                        defaultColor
-                });
+        return LabelTextAppearance.resolve(getContext(), textAppearanceRes);
     }
 
-    private void inflateMenu(@MenuRes int menuRes) {
-        PopupMenu popupMenu = new PopupMenu(getContext(), null);
-        this.menu = popupMenu.getMenu();
-        popupMenu.getMenuInflater().inflate(menuRes, this.menu);
+    private void setMenu(NavigationMenu menu) {
+        if (this.menu != null) {
+            this.menu.setCallback(null);
+        }
+        this.menu = menu;
+        this.menu.setCallback(menuCallback);
+        if (selectedItemPosition >= menu.size()) {
+            selectedItemPosition = 0;
+        }
 
         // Check whether the menu is valid, throw exception if the menu is invalid.
         validateMenu();
@@ -483,138 +1216,328 @@ public final class BottomNavigationBar extends ViewGroup {
                     + " is " + MIN_ITEM_COUNT + ". Using " + CLASS_NAME
                     + "#getMinItemCount to check the minimum item count.");
         }
+    }
 
+    /**
+     * Build the navigation items for the current menu. The items of menu items that are still in
+     * the menu are reused, only the views that changed are added or removed, and the rest are
+     * moved in place.
+     */
+    private void buildNavigationItems() {
+        long startNanos = beginSection(TRACE_SECTION_BUILD_ITEMS);
+        reconcileNavigationItems();
+        itemRebuildCount++;
+        endSection(METRIC_BUILD_ITEMS, startNanos);
+    }
+
+    private void reconcileNavigationItems() {
+        int menuSize = menu.size();
+        cancelFlatItemPress();
+
+        SparseArray<NavigationItem> reusableItems = new SparseArray<>();
+        if (items != null) {
+            for (NavigationItem item : items) {
+                MenuItem menuItem = item.getMenuItem();
+                if (menuItem != null && menuItem.getItemId() != Menu.NONE) {
+                    reusableItems.put(menuItem.getItemId(), item);
+                }
+            }
+        }
+
+        items = new NavigationItem[menuSize];
         for (int i = 0; i < menuSize; i++) {
             MenuItem menuItem = menu.getItem(i);
-            if (menuItem.hasSubMenu()) {
-                throw new UnsupportedOperationException(CLASS_NAME + " does not support submenus.");
+            menuItem.setCheckable(true);
+            menuItem.setChecked(i == selectedItemPosition);
+
+            NavigationItem item = reusableItems.get(menuItem.getItemId());
+            if (item != null) {
+                reusableItems.remove(menuItem.getItemId());
+                item.setPosition(i);
+                item.updateView(menuItem);
+            } else {
+                item = buildItem(menuItem, i);
             }
+            items[i] = item;
+        }
+        // The items left were removed from the menu, their icons are not needed anymore.
+        for (int i = 0; i < reusableItems.size(); i++) {
+            itemIconCache.remove(reusableItems.keyAt(i));
         }
-    }
-
-    private void buildNavigationItems() {
-        removeAllViews();
 
-        itemViews = new BottomNavigationItemView[menu.size()];
+        // Flattened items are drawn by the bar, only the item views are children.
+        List<View> children = new ArrayList<>(MAX_ITEM_COUNT);
         if (hasActionView) {
             int itemCount = computeItemCount();
             int centerPosition = itemCount / 2;
-            int leftEndPosition = centerPosition - 1;
-            int rightStartPosition = centerPosition + 1;
-            int leftItemCount = leftEndPosition + 1;
-            int rightItemCount = itemCount - rightStartPosition;
-
-            // Build the left navigation items.
-            for (int i = 0; i <= leftEndPosition; i++) {
-                buildAndAddItemView(i);
+            int leftItemCount = centerPosition;
+            int rightItemCount = itemCount - centerPosition - 1;
+
+            // The left navigation items, the action view in the center, then the right
+            // navigation items.
+            for (int i = 0; i < menuSize; i++) {
+                if (i == leftItemCount) {
+                    children.add(actionViewContainer);
+                }
+                if (!flattenItems) {
+                    children.add((View) items[i]);
+                }
             }
-
-            // Add action view to center
-            addView(actionViewContainer, centerPosition);
-
-            // Build the right navigation items.
-            for (int i = rightStartPosition; i < itemCount; i++) {
-                int position = i - 1;
-
-                MenuItem menuItem = menu.getItem(position);
-                menuItem.setCheckable(true);
-                menuItem.setChecked(position == selectedItemPosition);
-
-                BottomNavigationItemView itemView = buildItemView(menuItem, position);
-                itemViews[position] = itemView;
-                addView(itemView, i);
+            if (leftItemCount == menuSize) {
+                children.add(actionViewContainer);
             }
 
             // If the number of navigation items on the right is less than that on the left,
             // add placeholder.
             if (rightItemCount != leftItemCount) {
-                addView(new PlaceholderView(getContext()));
+                if (placeholderView == null) {
+                    placeholderView = new PlaceholderView(getContext());
+                }
+                children.add(placeholderView);
             }
-        } else {
+        } else if (!flattenItems) {
             // If action layout disabled, build navigation items only.
-            for (int i = 0; i < menu.size(); i++) {
-                buildAndAddItemView(i);
+            for (NavigationItem item : items) {
+                children.add((View) item);
+            }
+        }
+
+        reconcileChildren(children);
+    }
+
+    /** Make the children of the bar match the given views, in the given order. */
+    private void reconcileChildren(List<View> children) {
+        // Remove the views that are no longer needed.
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            if (!children.contains(getChildAt(i))) {
+                removeViewAt(i);
+            }
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            View child = children.get(i);
+            if (i < getChildCount() && getChildAt(i) == child) {
+                continue;
+            }
+            if (child.getParent() == this) {
+                // Move the view without detaching it from the window.
+                detachViewFromParent(child);
+                attachViewToParent(child, i, child.getLayoutParams());
+            } else {
+                addView(child, i);
             }
         }
-    }
-
-    private void buildAndAddItemView(int position) {
-        MenuItem menuItem = menu.getItem(position);
-        menuItem.setCheckable(true);
-        menuItem.setChecked(position == selectedItemPosition);
+        requestLayout();
+        invalidate();
+    }
+
+    private NavigationItem buildItem(MenuItem menuItem, int position) {
+        NavigationItem item;
+        if (flattenItems) {
+            item = new FlatNavigationItem(this);
+        } else {
+            BottomNavigationItemView itemView = new BottomNavigationItemView(getContext());
+            itemView.setOnClickListener(itemClickListener);
+            item = itemView;
+        }
+
+        item.setPosition(position);
+        ItemContent content = item.getContent();
+        content.setIconCache(itemIconCache);
+        content.setIconSize(itemIconSize);
+        content.setIconTint(itemIconTint);
+        content.setLabelTextColor(itemLabelTextColorDefault);
+        content.setLabelTextAppearanceInactive(labelTextAppearanceInactive);
+        content.setLabelTextAppearanceActive(labelTextAppearanceActive);
+        content.setLabelTextColor(itemLabelTextColor);
+        content.setContentSpacing(itemContentSpacing);
+        item.setViewBackground(itemBackgroundFactory.newBackground());
+
+        content.setLabelVisibilityMode(itemLabelVisibilityMode);
+        content.setBadgeStyle(badgeStyle);
+        content.setBadge(itemBadges.get(menuItem.getItemId(), ItemContent.BADGE_NONE));
+
+        item.updateView(menuItem);
+        return item;
+    }
+
+    void performItemClick(NavigationItem item) {
+        MenuItem menuItem = item.getMenuItem();
+        boolean reselected = (selectedItemPosition == item.getPosition());
+
+        if (instrumentationListener != null && lastUpDispatchNanos != 0) {
+            long latencyNanos = System.nanoTime() - lastUpDispatchNanos;
+            lastUpDispatchNanos = 0;
+            instrumentationListener.onMetric(METRIC_CLICK_LATENCY, latencyNanos);
+        }
+
+        if (itemSelectedListener != null) {
+            itemSelectedListener.onNavigationItemSelected(menuItem);
+        }
+        if (reselected && (itemReselectedListener != null)) {
+            itemReselectedListener.onNavigationItemReselected(menuItem);
+        }
+        int previousPosition = selectedItemPosition;
+        selectedItemPosition = item.getPosition();
+        updateSelectedItem(previousPosition);
+    }
+
+    private int computeItemCount() {
+        return !hasActionView ? menu.size() : menu.size() + 1;
+    }
+
+    private void updateNavigationItems() {
+        if (menu == null || items == null) {
+            return;
+        }
+
+        int menuSize = menu.size();
+        if (items.length != menuSize) {
+            buildNavigationItems();
+        }
+
+        for (int i = 0; i < menuSize; i++) {
+            boolean selected = (i == selectedItemPosition);
+
+            MenuItem menuItem = menu.getItem(i);
+            menuItem.setChecked(selected);
+            items[i].updateView(menuItem);
+        }
+        if (flattenItems) {
+            flatItemAccessibilityHelper.invalidateRoot();
+        }
+    }
+
+    /**
+     * Move the checked state from the item at the previous position to the currently selected
+     * item, the other items are left untouched.
+     */
+    private void updateSelectedItem(int previousPosition) {
+        if (menu == null || items == null) {
+            return;
+        }
+        if (items.length != menu.size()) {
+            updateNavigationItems();
+            return;
+        }
+        if (previousPosition == selectedItemPosition) {
+            return;
+        }
 
-        BottomNavigationItemView itemView = buildItemView(menuItem, position);
-        itemViews[position] = itemView;
-        addView(itemView, position);
+        setItemChecked(previousPosition, false);
+        setItemChecked(selectedItemPosition, true);
     }
 
-    private BottomNavigationItemView buildItemView(final MenuItem item, int position) {
-        final BottomNavigationItemView itemView = new BottomNavigationItemView(getContext());
-
-        itemView.setPosition(position);
-        itemView.setIconSize(itemIconSize);
-        itemView.setIconTint(itemIconTint);
-        itemView.setLabelTextColor(itemLabelTextColorDefault);
-        itemView.setLabelTextAppearanceInactive(itemLabelTextAppearanceInactive);
-        itemView.setLabelTextAppearanceActive(itemLabelTextAppearanceActive);
-        itemView.setLabelTextColor(itemLabelTextColor);
-        itemView.setContentSpacing(itemContentSpacing);
-        itemView.setRippleEnabled(itemRippleEnabled);
-        itemView.setUnboundedRipple(itemUnboundedRipple);
+    private void setItemChecked(int position, boolean checked) {
+        if (position < 0 || position >= items.length) {
+            return;
+        }
+        NavigationItem item = items[position];
+        boolean animate = canRunTransitions();
+        if (animate) {
+            item.getContent().beginSelectionTransition(AnimationUtils.currentAnimationTimeMillis());
+        }
+        menu.getItem(position).setChecked(checked);
+        item.setChecked(checked);
+        if (flattenItems) {
+            flatItemAccessibilityHelper.invalidateVirtualView(position);
+        }
+        if (animate) {
+            startTransitions();
+        }
+    }
 
-        if (itemBackgroundRes != 0) {
-            itemView.setViewBackground(itemBackgroundRes);
+    private void dispatchItemChanges(int changes) {
+        if (updateNesting > 0) {
+            pendingItemChanges |= changes;
         } else {
-            itemView.setRippleBackground(itemRippleColor);
+            applyItemChanges(changes);
         }
+    }
 
-        itemView.setLabelVisibilityMode(itemLabelVisibilityMode);
-
-        itemView.setOnClickListener(new OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                boolean reselected = (selectedItemPosition == itemView.getPosition());
+    /** Apply the given changes to all navigation items, each item is redrawn at most once. */
+    private void applyItemChanges(int changes) {
+        if (items == null) {
+            return;
+        }
 
-                if (itemSelectedListener != null) {
-                    itemSelectedListener.onNavigationItemSelected(item);
-                }
-                if (reselected && (itemReselectedListener != null)) {
-                    itemReselectedListener.onNavigationItemReselected(item);
-                }
-                selectedItemPosition = itemView.getPosition();
-                updateNavigationItems();
+        for (NavigationItem item : items) {
+            ItemContent content = item.getContent();
+            content.suspendUpdates();
+            if ((changes & ITEM_CHANGE_ICON_SIZE) != 0) {
+                content.setIconSize(itemIconSize);
             }
-        });
-
-        itemView.updateView(item);
-        return itemView;
+            if ((changes & ITEM_CHANGE_ICON_TINT) != 0) {
+                content.setIconTint(itemIconTint);
+            }
+            if ((changes & ITEM_CHANGE_LABEL_TEXT_APPEARANCE) != 0) {
+                content.setLabelTextAppearanceInactive(labelTextAppearanceInactive);
+                content.setLabelTextAppearanceActive(labelTextAppearanceActive);
+            }
+            if ((changes & (ITEM_CHANGE_LABEL_TEXT_APPEARANCE | ITEM_CHANGE_LABEL_TEXT_COLOR))
+                    != 0) {
+                content.setLabelTextColor(itemLabelTextColor);
+            }
+            if ((changes & ITEM_CHANGE_CONTENT_SPACING) != 0) {
+                content.setContentSpacing(itemContentSpacing);
+            }
+            if ((changes & ITEM_CHANGE_BACKGROUND) != 0) {
+                item.setViewBackground(itemBackgroundFactory.newBackground());
+            }
+            if ((changes & ITEM_CHANGE_LABEL_VISIBILITY_MODE) != 0) {
+                content.setLabelVisibilityMode(itemLabelVisibilityMode);
+            }
+            if ((changes & ITEM_CHANGE_BADGE_STYLE) != 0) {
+                content.onBadgeStyleChanged();
+            }
+            content.resumeUpdates();
+        }
     }
 
-    private int computeItemCount() {
-        return !hasActionView ? menu.size() : menu.size() + 1;
+    private boolean isLayoutLtr(View view) {
+        return ViewCompat.getLayoutDirection(view) == ViewCompat.LAYOUT_DIRECTION_LTR;
     }
 
-    private void updateNavigationItems() {
-        if (menu == null || itemViews == null) {
-            return;
-        }
+    /**
+     * Start a batch of property changes. Changes to the item properties made until the matching
+     * {@link #endUpdate()} are applied to the navigation items in a single pass, instead of once
+     * per setter. Calls can be nested, the changes are applied by the outermost
+     * {@link #endUpdate()}.
+     *
+     * @see #endUpdate()
+     */
+    public void beginUpdate() {
+        updateNesting++;
+    }
 
-        int menuSize = menu.size();
-        if (itemViews.length != menuSize) {
-            buildNavigationItems();
+    /**
+     * End a batch of property changes started by {@link #beginUpdate()}, and apply the pending
+     * changes to the navigation items if this ends the outermost batch.
+     *
+     * @throws IllegalStateException if there is no batch to end.
+     */
+    public void endUpdate() {
+        if (updateNesting == 0) {
+            throw new IllegalStateException("endUpdate() called without beginUpdate().");
         }
-
-        for (int i = 0; i < menuSize; i++) {
-            boolean selected = (i == selectedItemPosition);
-
-            MenuItem menuItem = menu.getItem(i);
-            menuItem.setChecked(selected);
-            itemViews[i].updateView(menuItem);
+        updateNesting--;
+        if (updateNesting == 0 && pendingItemChanges != 0) {
+            int changes = pendingItemChanges;
+            pendingItemChanges = 0;
+            applyItemChanges(changes);
         }
     }
 
-    private boolean isLayoutLtr(View view) {
-        return ViewCompat.getLayoutDirection(view) == ViewCompat.LAYOUT_DIRECTION_LTR;
+    /**
+     * Replace the navigation menu with the one described by the given descriptor, without
+     * inflating a menu resource. Use it instead of the {@code navigation_menu} attribute to keep
+     * menu inflation off the startup path.
+     *
+     * @param descriptor the description of the menu
+     * @throws IllegalArgumentException if the number of items is not supported by the bar.
+     */
+    public void setNavigationMenu(@NonNull NavigationMenuDescriptor descriptor) {
+        setMenu(NavigationMenu.create(getContext(), descriptor));
     }
 
     /**
@@ -682,6 +1605,31 @@ public final class BottomNavigationBar extends ViewGroup {
         }
     }
 
+    /**
+     * Get how the background is shaped to the outline of the bar.
+     *
+     * @return one of {@link #BACKGROUND_SHAPE_MODE_CLIP} or {@link #BACKGROUND_SHAPE_MODE_DRAWABLE}
+     * @see #setBackgroundShapeMode(int)
+     */
+    @BackgroundShapeMode
+    public int getBackgroundShapeMode() {
+        return backgroundShapeMode;
+    }
+
+    /**
+     * Set how the background is shaped to the outline of the bar. Only solid color backgrounds
+     * can be drawn as a shape, other backgrounds are always clipped.
+     *
+     * @param backgroundShapeMode one of {@link #BACKGROUND_SHAPE_MODE_CLIP} or
+     * {@link #BACKGROUND_SHAPE_MODE_DRAWABLE}
+     */
+    public void setBackgroundShapeMode(@BackgroundShapeMode int backgroundShapeMode) {
+        if (this.backgroundShapeMode != backgroundShapeMode) {
+            this.backgroundShapeMode = backgroundShapeMode;
+            applyBackgroundShapeMode();
+        }
+    }
+
     /**
      * @return the padding between hump and action view.
      * @see #setActionViewHumpPadding(int)
@@ -719,11 +1667,7 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemIconSize(@Dimension int itemIconSize) {
         this.itemIconSize = itemIconSize;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setIconSize(itemIconSize);
-            }
-        }
+        dispatchItemChanges(ITEM_CHANGE_ICON_SIZE);
     }
 
     /**
@@ -741,11 +1685,7 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemIconTintList(ColorStateList tint) {
         this.itemIconTint = tint;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setIconTint(itemIconTint);
-            }
-        }
+        dispatchItemChanges(ITEM_CHANGE_ICON_TINT);
     }
 
     /**
@@ -765,14 +1705,8 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemLabelTextAppearanceInactive(@StyleRes int textAppearanceRes) {
         this.itemLabelTextAppearanceInactive = textAppearanceRes;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setLabelTextAppearanceInactive(textAppearanceRes);
-                if (itemLabelTextColor != null) {
-                    itemView.setLabelTextColor(itemLabelTextColor);
-                }
-            }
-        }
+        labelTextAppearanceInactive = resolveLabelTextAppearance(textAppearanceRes);
+        dispatchItemChanges(ITEM_CHANGE_LABEL_TEXT_APPEARANCE);
     }
 
     /**
@@ -792,14 +1726,8 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemLabelTextAppearanceActive(@StyleRes int textAppearanceRes) {
         this.itemLabelTextAppearanceActive = textAppearanceRes;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setLabelTextAppearanceActive(textAppearanceRes);
-                if (itemLabelTextColor != null) {
-                    itemView.setLabelTextColor(itemLabelTextColor);
-                }
-            }
-        }
+        labelTextAppearanceActive = resolveLabelTextAppearance(textAppearanceRes);
+        dispatchItemChanges(ITEM_CHANGE_LABEL_TEXT_APPEARANCE);
     }
 
     /**
@@ -820,11 +1748,7 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemLabelTextColor(ColorStateList color) {
         this.itemLabelTextColor = color;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setLabelTextColor(color);
-            }
-        }
+        dispatchItemChanges(ITEM_CHANGE_LABEL_TEXT_COLOR);
     }
 
     /**
@@ -844,11 +1768,7 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemContentSpacing(@Dimension int itemContentSpacing) {
         this.itemContentSpacing = itemContentSpacing;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setContentSpacing(itemContentSpacing);
-            }
-        }
+        dispatchItemChanges(ITEM_CHANGE_CONTENT_SPACING);
     }
 
     /**
@@ -866,10 +1786,8 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemBackgroundRes(@DrawableRes int backgroundRes) {
         this.itemBackgroundRes = backgroundRes;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setViewBackground(itemBackgroundRes);
-            }
+        if (itemBackgroundFactory.setBackgroundRes(backgroundRes)) {
+            dispatchItemChanges(ITEM_CHANGE_BACKGROUND);
         }
     }
 
@@ -881,16 +1799,15 @@ public final class BottomNavigationBar extends ViewGroup {
     }
 
     /**
-     * Set the background of menu items to be a ripple with the given colors.
+     * Set the background of menu items to be a ripple with the given colors. The ripple is only
+     * used when no background resource is set for the menu items.
      *
      * @param color the {@link ColorStateList} for the ripple.
      */
     public void setItemRippleColor(ColorStateList color) {
         this.itemRippleColor = color;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setRippleColor(color);
-            }
+        if (itemBackgroundFactory.setRippleColor(color)) {
+            dispatchItemChanges(ITEM_CHANGE_BACKGROUND);
         }
     }
 
@@ -910,10 +1827,8 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemRippleEnabled(boolean enabled) {
         this.itemRippleEnabled = enabled;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setRippleEnabled(enabled);
-            }
+        if (itemBackgroundFactory.setRippleEnabled(enabled)) {
+            dispatchItemChanges(ITEM_CHANGE_BACKGROUND);
         }
     }
 
@@ -932,15 +1847,14 @@ public final class BottomNavigationBar extends ViewGroup {
      */
     public void setItemUnboundedRipple(boolean itemUnboundedRipple) {
         this.itemUnboundedRipple = itemUnboundedRipple;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setUnboundedRipple(itemUnboundedRipple);
-            }
+        if (itemBackgroundFactory.setUnboundedRipple(itemUnboundedRipple)) {
+            dispatchItemChanges(ITEM_CHANGE_BACKGROUND);
         }
     }
 
     /**
-     * @return one of {@link #LABEL_VISIBILITY_ALWAYS} or {@link #LABEL_VISIBILITY_NEVER}
+     * @return one of {@link #LABEL_VISIBILITY_ALWAYS}, {@link #LABEL_VISIBILITY_NEVER},
+     * {@link #LABEL_VISIBILITY_SELECTED} or {@link #LABEL_VISIBILITY_UNSELECTED}
      */
     @LabelVisibilityMode
     public int getItemLabelVisibilityMode() {
@@ -950,18 +1864,204 @@ public final class BottomNavigationBar extends ViewGroup {
     /**
      * Sets the navigation items' label visibility mode.
      *
-     * @param itemLabelVisibilityMode one of {@link #LABEL_VISIBILITY_ALWAYS}
-     *                                or {@link #LABEL_VISIBILITY_NEVER}
+     * @param itemLabelVisibilityMode one of {@link #LABEL_VISIBILITY_ALWAYS},
+     *                                {@link #LABEL_VISIBILITY_NEVER},
+     *                                {@link #LABEL_VISIBILITY_SELECTED}
+     *                                or {@link #LABEL_VISIBILITY_UNSELECTED}
      */
     public void setItemLabelVisibilityMode(@LabelVisibilityMode int itemLabelVisibilityMode) {
         this.itemLabelVisibilityMode = itemLabelVisibilityMode;
-        if (itemViews != null) {
-            for (BottomNavigationItemView itemView : itemViews) {
-                itemView.setLabelVisibilityMode(itemLabelVisibilityMode);
+        dispatchItemChanges(ITEM_CHANGE_LABEL_VISIBILITY_MODE);
+    }
+
+    /**
+     * @return the id of the menu item of the selected navigation item, or {@link View#NO_ID}
+     * when there is no menu.
+     */
+    @IdRes
+    public int getSelectedItemId() {
+        if (menu == null || selectedItemPosition >= menu.size()) {
+            return View.NO_ID;
+        }
+        return menu.getItem(selectedItemPosition).getItemId();
+    }
+
+    /**
+     * Show a dot badge on the navigation item with the given id.
+     *
+     * @param itemId the id of the menu item
+     */
+    public void showBadge(@IdRes int itemId) {
+        dropPendingBadge(itemId);
+        setItemBadge(itemId, ItemContent.BADGE_DOT);
+    }
+
+    /**
+     * Show a number badge on the navigation item with the given id. Numbers greater than
+     * {@link #getBadgeMaxNumber()} are shown capped, such as "99+". Only the item is redrawn, so
+     * the number can change as often as needed.
+     *
+     * @param itemId the id of the menu item
+     * @param number the number to show, 0 removes the badge
+     */
+    public void setBadgeNumber(@IdRes int itemId, int number) {
+        if (number < 0) {
+            throw new IllegalArgumentException("The badge number must not be negative.");
+        }
+        dropPendingBadge(itemId);
+        setItemBadge(itemId, (number == 0) ? ItemContent.BADGE_NONE : number);
+    }
+
+    /**
+     * Remove the badge from the navigation item with the given id.
+     *
+     * @param itemId the id of the menu item
+     */
+    public void removeBadge(@IdRes int itemId) {
+        dropPendingBadge(itemId);
+        setItemBadge(itemId, ItemContent.BADGE_NONE);
+    }
+
+    /**
+     * Show a dot badge on the navigation item with the given id from any thread, see
+     * {@link #postBadgeNumber(int, int)}.
+     *
+     * @param itemId the id of the menu item
+     */
+    public void postShowBadge(@IdRes int itemId) {
+        postItemBadge(itemId, ItemContent.BADGE_DOT);
+    }
+
+    /**
+     * Show a number badge on the navigation item with the given id from any thread. Updates are
+     * applied on the main thread at the next frame, only the latest number posted for an item
+     * until then is applied, and only the items whose badge has changed are redrawn. Use this
+     * method for counts that change many times in a row.
+     *
+     * @param itemId the id of the menu item
+     * @param number the number to show, 0 removes the badge
+     * @see #setBadgeNumber(int, int)
+     */
+    public void postBadgeNumber(@IdRes int itemId, int number) {
+        if (number < 0) {
+            throw new IllegalArgumentException("The badge number must not be negative.");
+        }
+        postItemBadge(itemId, (number == 0) ? ItemContent.BADGE_NONE : number);
+    }
+
+    private void postItemBadge(int itemId, int badge) {
+        synchronized (badgeLock) {
+            pendingBadges.put(itemId, badge);
+            if (badgeUpdateScheduled) {
+                return;
+            }
+            badgeUpdateScheduled = true;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleBadgeUpdate.run();
+        } else {
+            mainHandler.post(scheduleBadgeUpdate);
+        }
+    }
+
+    /** Drop the badge posted for the item, which a badge set on the main thread replaces. */
+    private void dropPendingBadge(int itemId) {
+        synchronized (badgeLock) {
+            pendingBadges.delete(itemId);
+        }
+    }
+
+    /**
+     * @param itemId the id of the menu item
+     * @return whether a dot or number badge is shown on the navigation item.
+     */
+    public boolean hasBadge(@IdRes int itemId) {
+        return itemBadges.indexOfKey(itemId) >= 0;
+    }
+
+    /**
+     * @param itemId the id of the menu item
+     * @return the number of the badge on the navigation item, 0 for a dot badge or no badge.
+     */
+    public int getBadgeNumber(@IdRes int itemId) {
+        return Math.max(itemBadges.get(itemId, ItemContent.BADGE_DOT), 0);
+    }
+
+    private void setItemBadge(int itemId, int badge) {
+        if (badge == ItemContent.BADGE_NONE) {
+            itemBadges.delete(itemId);
+        } else {
+            itemBadges.put(itemId, badge);
+        }
+
+        if (items == null) {
+            return;
+        }
+        for (NavigationItem item : items) {
+            MenuItem menuItem = item.getMenuItem();
+            if (menuItem != null && menuItem.getItemId() == itemId) {
+                item.getContent().setBadge(badge);
             }
         }
     }
 
+    /**
+     * @return the greatest number shown on a badge as is.
+     */
+    public int getBadgeMaxNumber() {
+        return badgeStyle.maxNumber;
+    }
+
+    /**
+     * Set the greatest number shown on a badge as is, greater numbers are shown as this number
+     * followed by a "+".
+     *
+     * @param maxNumber the greatest number, at least 1
+     */
+    public void setBadgeMaxNumber(int maxNumber) {
+        if (maxNumber < 1) {
+            throw new IllegalArgumentException("The badge max number must be at least 1.");
+        }
+        badgeStyle.maxNumber = maxNumber;
+        dispatchItemChanges(ITEM_CHANGE_BADGE_STYLE);
+    }
+
+    /**
+     * @return the background color of the badges.
+     */
+    @ColorInt
+    public int getBadgeBackgroundColor() {
+        return badgeStyle.backgroundPaint.getColor();
+    }
+
+    /**
+     * Set the background color of the badges.
+     *
+     * @param color the color to apply
+     */
+    public void setBadgeBackgroundColor(@ColorInt int color) {
+        badgeStyle.backgroundPaint.setColor(color);
+        dispatchItemChanges(ITEM_CHANGE_BADGE_STYLE);
+    }
+
+    /**
+     * @return the text color of the number badges.
+     */
+    @ColorInt
+    public int getBadgeTextColor() {
+        return badgeStyle.textPaint.getColor();
+    }
+
+    /**
+     * Set the text color of the number badges.
+     *
+     * @param color the color to apply
+     */
+    public void setBadgeTextColor(@ColorInt int color) {
+        badgeStyle.textPaint.setColor(color);
+        dispatchItemChanges(ITEM_CHANGE_BADGE_STYLE);
+    }
+
     /**
      * Set a listener that will be notified when a bottom navigation item is selected.
      *
@@ -983,6 +2083,181 @@ public final class BottomNavigationBar extends ViewGroup {
         itemReselectedListener = listener;
     }
 
+    /**
+     * Set a listener that will be notified when a touch goes down on a bottom navigation item,
+     * about the time of a tap before the item is selected, and when that touch is canceled or
+     * moves off the item.
+     *
+     * @param listener the listener to notify, null to stop tracking the touches
+     * @see #setOnNavigationItemSelectedListener(OnNavigationItemSelectedListener)
+     */
+    public void setOnNavigationItemPreselectListener(
+            @Nullable OnNavigationItemPreselectListener listener) {
+        if (listener == null) {
+            cancelPreselection();
+        }
+        itemPreselectListener = listener;
+    }
+
+    /**
+     * Set a listener that will be notified of the time spent in inflation, measure, layout, draw
+     * and item building, and of the click latency. While a listener is set, these passes are also
+     * marked as {@link Trace} sections. The inflation time is reported as soon as the listener is
+     * set, its section is only marked while a trace is being recorded. Pass null to turn the
+     * instrumentation off, which leaves no overhead besides a null check.
+     *
+     * @param listener the listener to notify, or null
+     */
+    public void setInstrumentationListener(@Nullable InstrumentationListener listener) {
+        instrumentationListener = listener;
+        lastUpDispatchNanos = 0;
+        if (listener != null) {
+            listener.onMetric(METRIC_INFLATE, inflateDurationNanos);
+        }
+    }
+
+    /**
+     * Return how many times the navigation items have been built since the bar was created, which
+     * happens once per menu change.
+     *
+     * @return the number of item builds.
+     */
+    public int getItemRebuildCount() {
+        return itemRebuildCount;
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        if (instrumentationListener != null
+                && event.getActionMasked() == MotionEvent.ACTION_UP) {
+            lastUpDispatchNanos = System.nanoTime();
+        }
+        if (itemPreselectListener != null) {
+            trackPreselection(event);
+        }
+        return super.dispatchTouchEvent(event);
+    }
+
+    /**
+     * Report the item a touch goes down on before the touch completes, and the cancellation of
+     * the touch. A touch that leaves the item by more than the touch slop cannot click it anymore.
+     */
+    private void trackPreselection(MotionEvent event) {
+        float x = event.getX();
+        float y = event.getY();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                cancelPreselection();
+                preselectedItem = findItemAt(x, y);
+                if (preselectedItem != null) {
+                    itemPreselectListener.onNavigationItemPreselected(
+                            preselectedItem.getMenuItem());
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (preselectedItem != null && !itemContains(preselectedItem, x, y, touchSlop)) {
+                    cancelPreselection();
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (preselectedItem != null && isCurrentItem(preselectedItem)
+                        && itemContains(preselectedItem, x, y, touchSlop)) {
+                    // The click follows, and selects the item.
+                    preselectedItem = null;
+                } else {
+                    // The item was removed, disabled or hidden during the touch, or the touch
+                    // left it, nothing is clicked.
+                    cancelPreselection();
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                cancelPreselection();
+                break;
+        }
+    }
+
+    private void cancelPreselection() {
+        if (preselectedItem != null) {
+            NavigationItem item = preselectedItem;
+            preselectedItem = null;
+            if (itemPreselectListener != null) {
+                itemPreselectListener.onNavigationItemPreselectCanceled(item.getMenuItem());
+            }
+        }
+    }
+
+    /** @return whether the item is one of the current items, and not one replaced by a rebuild. */
+    private boolean isCurrentItem(NavigationItem item) {
+        if (items == null) {
+            return false;
+        }
+        for (NavigationItem current : items) {
+            if (current == item) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private NavigationItem findItemAt(float x, float y) {
+        if (items == null) {
+            return null;
+        }
+        for (NavigationItem item : items) {
+            if (itemContains(item, x, y, 0)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /** @return whether the item is visible, enabled and under the point extended by the slop. */
+    private boolean itemContains(NavigationItem item, float x, float y, int slop) {
+        if (item instanceof FlatNavigationItem) {
+            FlatNavigationItem flatItem = (FlatNavigationItem) item;
+            return flatItem.isVisible() && flatItem.isEnabled() && flatItem.contains(x, y, slop);
+        }
+        View view = (View) item;
+        return view.getParent() == this && view.getVisibility() == VISIBLE && view.isEnabled()
+                && x >= view.getLeft() - slop && x < view.getRight() + slop
+                && y >= view.getTop() - slop && y < view.getBottom() + slop;
+    }
+
+    private long beginSection(String sectionName) {
+        if (instrumentationListener == null) {
+            return 0;
+        }
+        Trace.beginSection(sectionName);
+        return System.nanoTime();
+    }
+
+    /** End the section started by {@link #beginSection(String)} and report its duration. */
+    private void endSection(@Metric int metric, long startNanos) {
+        if (startNanos == 0) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        Trace.endSection();
+        if (instrumentationListener != null) {
+            instrumentationListener.onMetric(metric, durationNanos);
+        }
+    }
+
+    /** Listener for the instrumentation of the bar. */
+    public interface InstrumentationListener {
+
+        /**
+         * Called on the main thread each time a measured pass of the bar ends.
+         *
+         * @param metric one of {@link #METRIC_INFLATE}, {@link #METRIC_MEASURE},
+         * {@link #METRIC_LAYOUT}, {@link #METRIC_DRAW}, {@link #METRIC_BUILD_ITEMS} or
+         * {@link #METRIC_CLICK_LATENCY}
+         * @param durationNanos the duration of the pass, in nanoseconds.
+         */
+        void onMetric(@Metric int metric, long durationNanos);
+    }
+
     /** Listener for handling selection events on bottom navigation items. */
     public interface OnNavigationItemSelectedListener {
 
@@ -994,6 +2269,30 @@ public final class BottomNavigationBar extends ViewGroup {
         void onNavigationItemSelected(MenuItem item);
     }
 
+    /**
+     * Listener notified as soon as a touch goes down on a bottom navigation item, before the
+     * touch completes and the item is selected, so that the content of the item can start
+     * loading early.
+     */
+    public interface OnNavigationItemPreselectListener {
+
+        /**
+         * Called when a touch goes down on an item. It is followed either by the selection or
+         * reselection of the item, or by {@link #onNavigationItemPreselectCanceled(MenuItem)}.
+         *
+         * @param item the touched item, checked if it is the selected one.
+         */
+        void onNavigationItemPreselected(MenuItem item);
+
+        /**
+         * Called when the touch that went down on an item is canceled or moves off the item, so
+         * that the item will not be selected by it.
+         *
+         * @param item the touched item.
+         */
+        void onNavigationItemPreselectCanceled(MenuItem item);
+    }
+
     /** Listener for handling reselection events on bottom navigation items. */
     public interface OnNavigationItemReselectedListener {
 
@@ -1005,6 +2304,47 @@ public final class BottomNavigationBar extends ViewGroup {
         void onNavigationItemReselected(MenuItem item);
     }
 
+    /** The state of the bar kept across configuration changes and process death. */
+    static class SavedState extends BaseSavedState {
+        int selectedItemPosition;
+        int actionViewAttachMode;
+        int[] badgeItemIds;
+        int[] badges;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        SavedState(Parcel source) {
+            super(source);
+            selectedItemPosition = source.readInt();
+            actionViewAttachMode = source.readInt();
+            badgeItemIds = source.createIntArray();
+            badges = source.createIntArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(selectedItemPosition);
+            out.writeInt(actionViewAttachMode);
+            out.writeIntArray(badgeItemIds);
+            out.writeIntArray(badges);
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
     static class ViewContainer extends LinearLayout {
         ViewContainer(@NonNull Context context) {
             super(context);
@@ -0,0 +1,299 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+import androidx.annotation.AttrRes;
+import androidx.annotation.ColorInt;
+import androidx.annotation.LayoutRes;
+import androidx.annotation.MainThread;
+import androidx.annotation.MenuRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.annotation.WorkerThread;
+import androidx.appcompat.content.res.AppCompatResources;
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The resolved style and the parsed menu of a {@link BottomNavigationBar}, with the menu icons
+ * already decoded. A config holds no view and never changes, so it can be prepared on a
+ * background thread and handed to
+ * {@link BottomNavigationBar#BottomNavigationBar(Context, BottomNavigationBarConfig)}, which then
+ * only binds it on the main thread.
+ *
+ * <pre>
+ * BottomNavigationBarConfig.prepareAsync(context, R.style.BottomNavigationBar, R.menu.navigation,
+ *         executor, new BottomNavigationBarConfig.Callback() {
+ *             public void onPrepared(BottomNavigationBarConfig config) {
+ *                 container.addView(new BottomNavigationBar(context, config));
+ *             }
+ *         });
+ * </pre>
+ *
+ * <p>The bar must be created with a context of the same theme as the one the config was prepared
+ * with. The action layout is still inflated by the bar.</p>
+ */
+public final class BottomNavigationBarConfig {
+    private static final int[] CHECKED_STATE_SET = {android.R.attr.state_checked};
+    private static final int[] DISABLED_STATE_SET = {-android.R.attr.state_enabled};
+    private static final int[] EMPTY_STATE_SET = {};
+
+    /** Called on the main thread with the prepared config. */
+    public interface Callback {
+
+        /**
+         * @param config the config, ready to be bound to a bar.
+         */
+        void onPrepared(@NonNull BottomNavigationBarConfig config);
+    }
+
+    @AttrRes final int defStyleAttr;
+    @StyleRes final int defStyleRes;
+
+    final int itemHeight;
+    final int maxHumpHeight;
+    @Nullable final ColorStateList itemLabelTextColorDefault;
+
+    @LayoutRes final int actionLayoutRes;
+    final int actionViewAttachMode;
+    final int actionViewHumpPadding;
+
+    final int itemIconSize;
+    @Nullable final ColorStateList itemIconTint;
+    @StyleRes final int itemLabelTextAppearanceInactive;
+    @StyleRes final int itemLabelTextAppearanceActive;
+    @NonNull final LabelTextAppearance labelTextAppearanceInactive;
+    @NonNull final LabelTextAppearance labelTextAppearanceActive;
+    @Nullable final ColorStateList itemLabelTextColor;
+    final int itemContentSpacing;
+
+    final int itemBackgroundRes;
+    @Nullable final ColorStateList itemRippleColor;
+    final boolean itemRippleEnabled;
+    final boolean itemUnboundedRipple;
+    final int itemLabelVisibilityMode;
+
+    @ColorInt final int badgeBackgroundColor;
+    @ColorInt final int badgeTextColor;
+    final int badgeMaxNumber;
+
+    final boolean flattenItems;
+    final long transitionDuration;
+    final boolean hasElevation;
+    final float elevation;
+    final int backgroundShapeMode;
+
+    @MenuRes final int menuRes;
+    // The parsed menu with its icons loaded, each bar binds a copy of it. Only prepared configs
+    // have one, the cached ones must not keep a context.
+    @Nullable private final NavigationMenu menu;
+
+    private BottomNavigationBarConfig(@NonNull Context context, @NonNull TypedArray a,
+                                      @AttrRes int defStyleAttr, @StyleRes int defStyleRes,
+                                      @MenuRes int menuRes, boolean loadMenu) {
+        this.defStyleAttr = defStyleAttr;
+        this.defStyleRes = defStyleRes;
+
+        Resources resources = context.getResources();
+        itemHeight = resources.getDimensionPixelSize(R.dimen.bnb_bottom_navigation_bar_height);
+        maxHumpHeight = resources.getDimensionPixelOffset(
+                R.dimen.bnb_bottom_navigation_bar_max_hump_height);
+        itemLabelTextColorDefault = createDefaultColorStateList(context);
+
+        actionLayoutRes = a.getResourceId(R.styleable.BottomNavigationBar_action_layout, 0);
+        actionViewAttachMode = a.getInteger(
+                R.styleable.BottomNavigationBar_action_view_attach_mode,
+                BottomNavigationBar.ATTACH_MODE_EMBED);
+        actionViewHumpPadding = a.getDimensionPixelSize(
+                R.styleable.BottomNavigationBar_action_view_hump_padding,
+                resources.getDimensionPixelSize(
+                        R.dimen.bnb_bottom_navigation_bar_action_view_hump_padding));
+
+        itemIconSize = a.getDimensionPixelSize(R.styleable.BottomNavigationBar_item_icon_size,
+                resources.getDimensionPixelSize(R.dimen.bnb_bottom_navigation_bar_icon_size));
+        if (a.hasValue(R.styleable.BottomNavigationBar_item_icon_tint)) {
+            itemIconTint = a.getColorStateList(R.styleable.BottomNavigationBar_item_icon_tint);
+        } else {
+            itemIconTint = itemLabelTextColorDefault;
+        }
+        itemLabelTextAppearanceInactive = a.getResourceId(
+                R.styleable.BottomNavigationBar_item_label_text_appearance_inactive, 0);
+        itemLabelTextAppearanceActive = a.getResourceId(
+                R.styleable.BottomNavigationBar_item_label_text_appearance_active, 0);
+        labelTextAppearanceInactive = LabelTextAppearance.resolve(context,
+                itemLabelTextAppearanceInactive);
+        labelTextAppearanceActive = (itemLabelTextAppearanceActive
+                == itemLabelTextAppearanceInactive) ? labelTextAppearanceInactive
+                : LabelTextAppearance.resolve(context, itemLabelTextAppearanceActive);
+        itemLabelTextColor = a.getColorStateList(
+                R.styleable.BottomNavigationBar_item_label_text_color);
+        itemContentSpacing = a.getDimensionPixelSize(
+                R.styleable.BottomNavigationBar_item_content_spacing,
+                resources.getDimensionPixelSize(
+                        R.dimen.bnb_bottom_navigation_bar_item_content_spacing));
+
+        itemBackgroundRes = a.getResourceId(R.styleable.BottomNavigationBar_item_background, 0);
+        itemRippleColor = a.getColorStateList(R.styleable.BottomNavigationBar_item_ripple_color);
+        itemRippleEnabled = a.getBoolean(R.styleable.BottomNavigationBar_item_ripple_enabled,
+                true);
+        itemUnboundedRipple = a.getBoolean(R.styleable.BottomNavigationBar_item_unbounded_ripple,
+                true);
+        itemLabelVisibilityMode = a.getInteger(
+                R.styleable.BottomNavigationBar_item_label_visibility_mode,
+                BottomNavigationBar.LABEL_VISIBILITY_ALWAYS);
+
+        badgeBackgroundColor = a.getColor(R.styleable.BottomNavigationBar_badge_background_color,
+                ContextCompat.getColor(context,
+                        R.color.bnb_bottom_navigation_bar_badge_background));
+        badgeTextColor = a.getColor(R.styleable.BottomNavigationBar_badge_text_color,
+                ContextCompat.getColor(context, R.color.bnb_bottom_navigation_bar_badge_text));
+        badgeMaxNumber = a.getInteger(R.styleable.BottomNavigationBar_badge_max_number,
+                resources.getInteger(R.integer.bnb_bottom_navigation_bar_badge_max_number));
+
+        flattenItems = a.getBoolean(R.styleable.BottomNavigationBar_flatten_items, false);
+        transitionDuration = a.getInteger(R.styleable.BottomNavigationBar_transition_duration,
+                resources.getInteger(R.integer.bnb_bottom_navigation_bar_transition_duration));
+        hasElevation = a.hasValue(R.styleable.BottomNavigationBar_elevation);
+        elevation = a.getDimensionPixelSize(R.styleable.BottomNavigationBar_elevation, 0);
+        backgroundShapeMode = a.getInteger(R.styleable.BottomNavigationBar_background_shape_mode,
+                BottomNavigationBar.BACKGROUND_SHAPE_MODE_DRAWABLE);
+
+        if (menuRes == 0) {
+            menuRes = a.getResourceId(R.styleable.BottomNavigationBar_navigation_menu, 0);
+        }
+        this.menuRes = menuRes;
+
+        if (loadMenu && menuRes != 0) {
+            menu = NavigationMenu.inflate(context, menuRes);
+            menu.loadIcons();
+        } else {
+            menu = null;
+        }
+    }
+
+    /**
+     * Resolve the attributes of a bar created from a layout, on the calling thread. Bars whose
+     * attributes resolve to the same values share the config through {@link ConfigCache}.
+     */
+    @NonNull
+    static BottomNavigationBarConfig resolve(@NonNull Context context,
+                                             @Nullable AttributeSet attrs,
+                                             @AttrRes int defStyleAttr,
+                                             @StyleRes int defStyleRes) {
+        return ConfigCache.obtain(context, attrs, defStyleAttr, defStyleRes);
+    }
+
+    /**
+     * Read the attributes without parsing the menu, for a bar created from a layout.
+     *
+     * @param a the attributes of the bar, not recycled
+     */
+    @NonNull
+    static BottomNavigationBarConfig create(@NonNull Context context, @NonNull TypedArray a,
+                                            @AttrRes int defStyleAttr,
+                                            @StyleRes int defStyleRes) {
+        return new BottomNavigationBarConfig(context, a, defStyleAttr, defStyleRes, 0, false);
+    }
+
+    /**
+     * Resolve the style, parse the menu and decode its icons on the calling thread, which does
+     * not need to be the main thread.
+     *
+     * @param context the context whose theme the bar will be created with
+     * @param styleRes the style of the bar when the theme sets no
+     *                 {@code bottom_navigation_bar_style}, {@code R.style.BottomNavigationBar}
+     *                 for the default style
+     * @param menuRes the menu of the bar, 0 to use the {@code navigation_menu} of the style
+     */
+    @WorkerThread
+    @NonNull
+    public static BottomNavigationBarConfig prepare(@NonNull Context context,
+                                                    @StyleRes int styleRes,
+                                                    @MenuRes int menuRes) {
+        TypedArray a = context.obtainStyledAttributes(null, R.styleable.BottomNavigationBar,
+                R.attr.bottom_navigation_bar_style, styleRes);
+        BottomNavigationBarConfig config = new BottomNavigationBarConfig(context, a,
+                R.attr.bottom_navigation_bar_style, styleRes, menuRes, true);
+        a.recycle();
+        return config;
+    }
+
+    /**
+     * Run {@link #prepare(Context, int, int)} on the given executor and deliver the config on the
+     * main thread. An exception thrown while preparing is thrown again on the main thread, as it
+     * would have been when creating the bar there.
+     *
+     * @param callback called on the main thread with the config
+     */
+    @MainThread
+    public static void prepareAsync(@NonNull final Context context, @StyleRes final int styleRes,
+                                    @MenuRes final int menuRes, @NonNull Executor executor,
+                                    @NonNull final Callback callback) {
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final BottomNavigationBarConfig config = prepare(context, styleRes, menuRes);
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onPrepared(config);
+                        }
+                    });
+                } catch (final RuntimeException e) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            throw e;
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * @return a new menu for one bar, sharing the loaded icons of this config, or parsed with the
+     * given context when the config has no loaded menu.
+     */
+    @Nullable
+    NavigationMenu newMenu(@NonNull Context context) {
+        if (menu != null) {
+            return menu.copy(context);
+        }
+        return (menuRes != 0) ? NavigationMenu.inflate(context, menuRes) : null;
+    }
+
+    @Nullable
+    private static ColorStateList createDefaultColorStateList(@NonNull Context context) {
+        final TypedValue value = new TypedValue();
+        if (!context.getTheme().resolveAttribute(android.R.attr.textColorSecondary, value,
+                true)) {
+            return null;
+        }
+        ColorStateList baseColor = AppCompatResources.getColorStateList(context,
+                value.resourceId);
+        if (!context.getTheme().resolveAttribute(androidx.appcompat.R.attr.colorPrimary,
+                value, true)) {
+            return null;
+        }
+        int colorPrimary = value.data;
+        int defaultColor = baseColor.getDefaultColor();
+        return new ColorStateList(
+                new int[][] {DISABLED_STATE_SET, CHECKED_STATE_SET, EMPTY_STATE_SET},
+                new int[] {
+                        baseColor.getColorForState(DISABLED_STATE_SET, defaultColor), colorPrimary,
+                        defaultColor
+                });
+    }
+}
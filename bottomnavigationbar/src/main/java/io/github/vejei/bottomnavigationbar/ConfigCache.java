@@ -0,0 +1,177 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+import androidx.annotation.AttrRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares the resolved configs of the bars across the process, so that every activity hosting a
+ * bar of the same style does not build the same colors and text appearances again.
+ *
+ * <p>A config is keyed by the theme and by the values its attributes resolve to, since color
+ * selectors and text appearances may refer to any theme attribute. The theme is held weakly, and
+ * themes built from the same styles are equal, so the bars of different activities of the same
+ * theme share a config. Themes only compare their styles from Android 7.0, the cache is not used
+ * before. The cache is cleared when a part of the configuration that resources depend on
+ * changes, the ui mode included.</p>
+ */
+final class ConfigCache {
+    private static final int MAX_SIZE = 8;
+    // The window bounds and the screen size are left out, they change with the multi-window
+    // size and the bar resolves no resource depending on them.
+    private static final int CONFIG_CHANGES = ActivityInfo.CONFIG_UI_MODE
+            | ActivityInfo.CONFIG_DENSITY | ActivityInfo.CONFIG_LOCALE
+            | ActivityInfo.CONFIG_LAYOUT_DIRECTION | ActivityInfo.CONFIG_ORIENTATION
+            | ActivityInfo.CONFIG_SMALLEST_SCREEN_SIZE | ActivityInfo.CONFIG_FONT_SCALE;
+    // The values of a key per attribute, the type, the data and the resource id.
+    private static final int VALUE_SIZE = 3;
+    // The default style attribute and resource come first in a key.
+    private static final int STYLEABLE_OFFSET = 2;
+
+    private static final Object lock = new Object();
+    private static Configuration configuration;
+    // Incremented when the cache is cleared, so that a config resolved before is not put back.
+    private static int generation;
+    private static final LinkedHashMap<Key, BottomNavigationBarConfig> configs =
+            new LinkedHashMap<Key, BottomNavigationBarConfig>(MAX_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Key, BottomNavigationBarConfig> eldest) {
+                    return size() > MAX_SIZE;
+                }
+            };
+
+    private ConfigCache() {
+    }
+
+    /**
+     * Get the config of a bar created from a layout, resolving it only if no bar with the same
+     * theme and attribute values has been created in the current configuration.
+     */
+    @NonNull
+    static BottomNavigationBarConfig obtain(@NonNull Context context,
+                                            @Nullable AttributeSet attrs,
+                                            @AttrRes int defStyleAttr,
+                                            @StyleRes int defStyleRes) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.BottomNavigationBar,
+                defStyleAttr, defStyleRes);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            BottomNavigationBarConfig config = BottomNavigationBarConfig.create(context, a,
+                    defStyleAttr, defStyleRes);
+            a.recycle();
+            return config;
+        }
+        Key key = new Key(context, a, defStyleAttr, defStyleRes);
+
+        BottomNavigationBarConfig config;
+        int startGeneration;
+        synchronized (lock) {
+            invalidateIfChanged(context.getResources().getConfiguration());
+            config = configs.get(key);
+            startGeneration = generation;
+        }
+        if (config == null) {
+            // Resolve outside of the lock, bars of other threads do not wait for this one.
+            BottomNavigationBarConfig created = BottomNavigationBarConfig.create(context, a,
+                    defStyleAttr, defStyleRes);
+            synchronized (lock) {
+                config = configs.get(key);
+                if (config == null) {
+                    config = created;
+                    if (generation == startGeneration) {
+                        configs.put(key, config);
+                    }
+                }
+            }
+        }
+        a.recycle();
+        return config;
+    }
+
+    private static void invalidateIfChanged(@NonNull Configuration currentConfiguration) {
+        if (configuration != null
+                && (configuration.diff(currentConfiguration) & CONFIG_CHANGES) == 0) {
+            return;
+        }
+        configs.clear();
+        generation++;
+        configuration = new Configuration(currentConfiguration);
+    }
+
+    /** The theme and the resolved values a config is built from. */
+    private static final class Key {
+        private final WeakReference<Resources.Theme> theme;
+        // The hash of the theme when the key was made, a theme changed afterwards no longer
+        // equals the one it had and misses its entry instead of corrupting the map.
+        private final int themeHashCode;
+        private final int[] values;
+        private final int hashCode;
+
+        Key(@NonNull Context context, @NonNull TypedArray a, @AttrRes int defStyleAttr,
+            @StyleRes int defStyleRes) {
+            Resources.Theme theme = context.getTheme();
+            this.theme = new WeakReference<>(theme);
+            themeHashCode = theme.hashCode();
+
+            int count = a.getIndexCount();
+            values = new int[STYLEABLE_OFFSET
+                    + R.styleable.BottomNavigationBar.length * VALUE_SIZE];
+            values[0] = defStyleAttr;
+            values[1] = defStyleRes;
+
+            TypedValue value = new TypedValue();
+            for (int i = 0; i < count; i++) {
+                int index = a.getIndex(i);
+                if (a.getValue(index, value)) {
+                    putValue(STYLEABLE_OFFSET + index * VALUE_SIZE, value);
+                }
+            }
+            hashCode = 31 * themeHashCode + Arrays.hashCode(values);
+        }
+
+        private void putValue(int offset, @NonNull TypedValue value) {
+            values[offset] = value.type;
+            values[offset + 1] = value.data;
+            values[offset + 2] = value.resourceId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            if (hashCode != other.hashCode || themeHashCode != other.themeHashCode
+                    || !Arrays.equals(values, other.values)) {
+                return false;
+            }
+            Resources.Theme theme = this.theme.get();
+            Resources.Theme otherTheme = other.theme.get();
+            return theme != null && otherTheme != null
+                    && (theme == otherTheme || theme.equals(otherTheme));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.view.MenuItem;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.Button;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.MenuItemCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import java.util.List;
+
+/**
+ * Exposes the flattened items of a bar to accessibility services and to the keyboard as virtual
+ * views, identified by their position. The items are looked up again on every call, as the bar
+ * rebuilds them when its menu changes.
+ */
+final class FlatItemAccessibilityHelper extends ExploreByTouchHelper {
+    private final BottomNavigationBar bar;
+    private final Rect itemBounds = new Rect();
+
+    FlatItemAccessibilityHelper(@NonNull BottomNavigationBar bar) {
+        super(bar);
+        this.bar = bar;
+    }
+
+    @Override
+    protected int getVirtualViewAt(float x, float y) {
+        NavigationItem[] items = bar.getFlatItems();
+        if (items != null) {
+            for (NavigationItem item : items) {
+                FlatNavigationItem flatItem = (FlatNavigationItem) item;
+                if (flatItem.isVisible() && flatItem.contains(x, y, 0)) {
+                    return flatItem.getPosition();
+                }
+            }
+        }
+        return INVALID_ID;
+    }
+
+    @Override
+    protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+        NavigationItem[] items = bar.getFlatItems();
+        if (items != null) {
+            for (NavigationItem item : items) {
+                if (((FlatNavigationItem) item).isVisible()) {
+                    virtualViewIds.add(item.getPosition());
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onPopulateNodeForVirtualView(int virtualViewId,
+                                                @NonNull AccessibilityNodeInfoCompat node) {
+        FlatNavigationItem item = findItem(virtualViewId);
+        if (item == null) {
+            // The item was removed since the services asked for the node, the bounds must be set.
+            node.setText("");
+            node.setBoundsInParent(new Rect());
+            return;
+        }
+        MenuItem menuItem = item.getMenuItem();
+        CharSequence contentDescription = MenuItemCompat.getContentDescription(menuItem);
+        node.setText(menuItem.getTitle());
+        node.setContentDescription(contentDescription != null
+                ? contentDescription : menuItem.getTitle());
+        node.setClassName(Button.class.getName());
+        node.setSelected(menuItem.isChecked());
+        node.setEnabled(item.isEnabled());
+        node.setFocusable(item.isEnabled());
+        if (item.isEnabled()) {
+            node.setClickable(true);
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        }
+        item.getBounds(itemBounds);
+        node.setBoundsInParent(itemBounds);
+    }
+
+    @Override
+    protected boolean onPerformActionForVirtualView(int virtualViewId, int action,
+                                                    @Nullable Bundle arguments) {
+        if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+            return false;
+        }
+        FlatNavigationItem item = findItem(virtualViewId);
+        if (item == null || !item.isEnabled()) {
+            return false;
+        }
+        bar.performItemClick(item);
+        invalidateVirtualView(virtualViewId);
+        sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+        return true;
+    }
+
+    @Override
+    protected void onVirtualViewKeyboardFocusChanged(int virtualViewId, boolean hasFocus) {
+        FlatNavigationItem item = findItem(virtualViewId);
+        if (item != null) {
+            item.setFocused(hasFocus);
+        }
+    }
+
+    @Nullable
+    private FlatNavigationItem findItem(int virtualViewId) {
+        NavigationItem[] items = bar.getFlatItems();
+        if (items == null || virtualViewId < 0 || virtualViewId >= items.length) {
+            return null;
+        }
+        return (FlatNavigationItem) items[virtualViewId];
+    }
+}
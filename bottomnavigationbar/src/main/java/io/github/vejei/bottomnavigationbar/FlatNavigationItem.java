@@ -0,0 +1,226 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.view.MenuItem;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.core.view.ViewCompat;
+
+/**
+ * A navigation item drawn by the bar itself when the items are flattened. It keeps the state that
+ * a {@link BottomNavigationItemView} would otherwise hold as a view: its bounds, its background
+ * and its drawable state. Hit-testing is done by the bar, accessibility by
+ * {@link FlatItemAccessibilityHelper}.
+ */
+final class FlatNavigationItem implements NavigationItem, ItemContent.Host {
+    private static final int STATE_ENABLED = 1;
+    private static final int STATE_FOCUSED = 1 << 1;
+    private static final int STATE_PRESSED = 1 << 2;
+    private static final int STATE_CHECKED = 1 << 3;
+    // The drawable state of every combination of the flags above, built once and shared, as the
+    // state sets of View are. They must not be modified.
+    private static final int[][] STATE_SETS = new int[1 << 4][];
+
+    static {
+        for (int flags = 0; flags < STATE_SETS.length; flags++) {
+            int[] state = new int[Integer.bitCount(flags) + ((flags & STATE_CHECKED) != 0 ? 1 : 0)];
+            int count = 0;
+            if ((flags & STATE_ENABLED) != 0) {
+                state[count++] = android.R.attr.state_enabled;
+            }
+            if ((flags & STATE_FOCUSED) != 0) {
+                state[count++] = android.R.attr.state_focused;
+            }
+            if ((flags & STATE_PRESSED) != 0) {
+                state[count++] = android.R.attr.state_pressed;
+            }
+            if ((flags & STATE_CHECKED) != 0) {
+                state[count++] = android.R.attr.state_checked;
+                state[count] = android.R.attr.state_selected;
+            }
+            STATE_SETS[flags] = state;
+        }
+    }
+
+    private final View host;
+    private final ItemContent content;
+    private int position;
+
+    private final Rect bounds = new Rect();
+    private Drawable background;
+    private boolean visible;
+    private boolean focused;
+    private boolean pressed;
+    private int[] drawableState = STATE_SETS[0];
+
+    FlatNavigationItem(@NonNull View host) {
+        this.host = host;
+        this.content = new ItemContent(host.getContext(), this);
+    }
+
+    void layout(int left, int top, int right, int bottom) {
+        bounds.set(left, top, right, bottom);
+        if (background != null) {
+            background.setBounds(bounds);
+        }
+        content.setBounds(left, top, right, bottom);
+    }
+
+    void draw(Canvas canvas) {
+        if (!isVisible()) {
+            return;
+        }
+        if (background != null) {
+            background.draw(canvas);
+        }
+        content.draw(canvas);
+    }
+
+    boolean isVisible() {
+        return visible;
+    }
+
+    boolean isEnabled() {
+        MenuItem menuItem = content.getMenuItem();
+        return menuItem != null && menuItem.isEnabled();
+    }
+
+    /** @return whether the point is inside the item, extended by the given slop on each side. */
+    boolean contains(float x, float y, int slop) {
+        return x >= bounds.left - slop && x < bounds.right + slop
+                && y >= bounds.top - slop && y < bounds.bottom + slop;
+    }
+
+    void getBounds(@NonNull Rect outBounds) {
+        outBounds.set(bounds);
+    }
+
+    /** Set whether the item has the keyboard focus of the bar. */
+    void setFocused(boolean focused) {
+        if (this.focused != focused) {
+            this.focused = focused;
+            refreshDrawableState();
+        }
+    }
+
+    void setPressed(boolean pressed) {
+        if (this.pressed != pressed) {
+            this.pressed = pressed;
+            refreshDrawableState();
+        }
+    }
+
+    void setHotspot(float x, float y) {
+        if (background != null) {
+            DrawableCompat.setHotspot(background, x, y);
+        }
+    }
+
+    boolean isBackground(Drawable who) {
+        return who != null && who == background;
+    }
+
+    void jumpDrawablesToCurrentState() {
+        if (background != null) {
+            background.jumpToCurrentState();
+        }
+    }
+
+    private void refreshDrawableState() {
+        int flags = 0;
+        if (isEnabled()) {
+            flags |= STATE_ENABLED;
+        }
+        if (focused) {
+            flags |= STATE_FOCUSED;
+        }
+        if (pressed) {
+            flags |= STATE_PRESSED;
+        }
+        if (content.isChecked()) {
+            flags |= STATE_CHECKED;
+        }
+        drawableState = STATE_SETS[flags];
+
+        if (background != null && background.isStateful()) {
+            background.setState(drawableState);
+        }
+        content.onDrawableStateChanged();
+    }
+
+    @Override
+    public int[] getContentDrawableState() {
+        return drawableState;
+    }
+
+    @Override
+    public void invalidateContent() {
+        host.invalidate();
+    }
+
+    @Override
+    public boolean isContentLayoutRtl() {
+        return ViewCompat.getLayoutDirection(host) == ViewCompat.LAYOUT_DIRECTION_RTL;
+    }
+
+    @Override
+    public ItemContent getContent() {
+        return content;
+    }
+
+    @Override
+    public MenuItem getMenuItem() {
+        return content.getMenuItem();
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    @Override
+    public void updateView(MenuItem menuItem) {
+        content.bind(menuItem);
+        if (!isEnabled()) {
+            pressed = false;
+        }
+        refreshDrawableState();
+        if (visible != menuItem.isVisible()) {
+            visible = menuItem.isVisible();
+            // Hidden items take no space in the bar.
+            host.requestLayout();
+        }
+    }
+
+    @Override
+    public void setChecked(boolean checked) {
+        if (content.setChecked(checked)) {
+            refreshDrawableState();
+        }
+    }
+
+    @Override
+    public void setViewBackground(Drawable background) {
+        if (this.background != null) {
+            this.background.setCallback(null);
+        }
+        this.background = background;
+        if (background != null) {
+            background.setCallback(host);
+            background.setBounds(bounds);
+            if (background.isStateful()) {
+                background.setState(drawableState);
+            }
+        }
+        host.invalidate();
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Outline;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Solid color background which fills the outline path of the bar, used instead of clipping the
+ * canvas to the path.
+ */
+final class HumpShapeDrawable extends Drawable {
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path;
+    @ColorInt private int color;
+    private int alpha = 255;
+    @Nullable private ColorFilter colorFilter;
+    // The background tint of the bar, applied as ColorDrawable does unless a filter is set.
+    @Nullable private ColorStateList tint;
+    @Nullable private PorterDuff.Mode tintMode = PorterDuff.Mode.SRC_IN;
+    @Nullable private PorterDuffColorFilter tintFilter;
+
+    /**
+     * @param path the shape to fill, owned by the bar and rebuilt in place when its geometry
+     *             changes.
+     * @param color the fill color.
+     */
+    HumpShapeDrawable(@NonNull Path path, @ColorInt int color) {
+        this.path = path;
+        this.color = color;
+        updatePaintColor();
+    }
+
+    @ColorInt
+    int getColor() {
+        return color;
+    }
+
+    void setColor(@ColorInt int color) {
+        if (this.color != color) {
+            this.color = color;
+            updatePaintColor();
+            invalidateSelf();
+        }
+    }
+
+    private void updatePaintColor() {
+        int colorAlpha = Color.alpha(color) * (alpha + (alpha >> 7)) >> 8;
+        paint.setColor((color & 0x00FFFFFF) | (colorAlpha << 24));
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (paint.getAlpha() != 0) {
+            canvas.drawPath(path, paint);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha != alpha) {
+            this.alpha = alpha;
+            updatePaintColor();
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        this.colorFilter = colorFilter;
+        updatePaintColorFilter();
+        invalidateSelf();
+    }
+
+    @Override
+    public void setTintList(@Nullable ColorStateList tint) {
+        this.tint = tint;
+        updateTintFilter();
+        invalidateSelf();
+    }
+
+    @Override
+    public void setTintMode(@Nullable PorterDuff.Mode tintMode) {
+        this.tintMode = tintMode;
+        updateTintFilter();
+        invalidateSelf();
+    }
+
+    @Override
+    public boolean isStateful() {
+        return tint != null && tint.isStateful();
+    }
+
+    @Override
+    protected boolean onStateChange(int[] state) {
+        if (tint == null || !tint.isStateful()) {
+            return false;
+        }
+        updateTintFilter();
+        return true;
+    }
+
+    private void updateTintFilter() {
+        if (tint != null && tintMode != null) {
+            tintFilter = new PorterDuffColorFilter(
+                    tint.getColorForState(getState(), Color.TRANSPARENT), tintMode);
+        } else {
+            tintFilter = null;
+        }
+        updatePaintColorFilter();
+    }
+
+    private void updatePaintColorFilter() {
+        paint.setColorFilter((colorFilter != null) ? colorFilter : tintFilter);
+    }
+
+    @Override
+    public int getOpacity() {
+        // The shape never covers the whole bounds.
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public void getOutline(@NonNull Outline outline) {
+        if (path.isConvex()) {
+            outline.setConvexPath(path);
+        }
+    }
+}
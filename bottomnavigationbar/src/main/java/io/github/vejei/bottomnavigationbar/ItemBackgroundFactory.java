@@ -0,0 +1,131 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.RippleDrawable;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Creates the backgrounds of the navigation items. The background is built once for the current
+ * settings and every item gets a copy created from its constant state.
+ */
+final class ItemBackgroundFactory {
+    private final Context context;
+
+    @DrawableRes private int backgroundRes;
+    private ColorStateList rippleColor;
+    private boolean rippleEnabled;
+    private boolean unboundedRipple;
+
+    // The last ripple color converted by RippleUtils and the color it was converted from, older
+    // conversions are not kept.
+    private ColorStateList convertedRippleColor;
+    private ColorStateList rippleDrawableColor;
+
+    private boolean prototypeValid;
+    private Drawable prototype;
+
+    ItemBackgroundFactory(@NonNull Context context) {
+        this.context = context;
+    }
+
+    /** @return true if the background has changed. */
+    boolean setBackgroundRes(@DrawableRes int backgroundRes) {
+        if (this.backgroundRes == backgroundRes) {
+            return false;
+        }
+        this.backgroundRes = backgroundRes;
+        prototypeValid = false;
+        return true;
+    }
+
+    /** @return true if the background has changed. */
+    boolean setRippleColor(@Nullable ColorStateList rippleColor) {
+        if (this.rippleColor == rippleColor) {
+            return false;
+        }
+        this.rippleColor = rippleColor;
+        return onRippleChanged();
+    }
+
+    /** @return true if the background has changed. */
+    boolean setRippleEnabled(boolean rippleEnabled) {
+        if (this.rippleEnabled == rippleEnabled) {
+            return false;
+        }
+        this.rippleEnabled = rippleEnabled;
+        return onRippleChanged();
+    }
+
+    /** @return true if the background has changed. */
+    boolean setUnboundedRipple(boolean unboundedRipple) {
+        if (this.unboundedRipple == unboundedRipple) {
+            return false;
+        }
+        this.unboundedRipple = unboundedRipple;
+        return onRippleChanged();
+    }
+
+    private boolean onRippleChanged() {
+        if (backgroundRes != 0) {
+            // The background resource takes precedence over the ripple.
+            return false;
+        }
+        prototypeValid = false;
+        return true;
+    }
+
+    /**
+     * @return a new background for a navigation item, or null if the item has no background. The
+     * prototype itself is never given out, and each copy is mutated so that its state, hotspot
+     * and bounds are its own.
+     */
+    @Nullable
+    Drawable newBackground() {
+        if (!prototypeValid) {
+            prototype = createBackground();
+            prototypeValid = true;
+        }
+        if (prototype == null) {
+            return null;
+        }
+        Drawable.ConstantState state = prototype.getConstantState();
+        return (state != null) ? state.newDrawable().mutate() : createBackground();
+    }
+
+    @Nullable
+    private Drawable createBackground() {
+        if (backgroundRes != 0) {
+            return ContextCompat.getDrawable(context, backgroundRes);
+        }
+        if (!rippleEnabled || rippleColor == null) {
+            return null;
+        }
+
+        GradientDrawable contentDrawable = new GradientDrawable();
+        contentDrawable.setColor(Color.TRANSPARENT);
+
+        GradientDrawable maskDrawable = new GradientDrawable();
+        maskDrawable.setCornerRadius(0.00001F);
+        maskDrawable.setColor(Color.WHITE);
+
+        return new RippleDrawable(getRippleDrawableColor(rippleColor),
+                unboundedRipple ? null : contentDrawable, unboundedRipple ? null : maskDrawable);
+    }
+
+    @NonNull
+    private ColorStateList getRippleDrawableColor(@NonNull ColorStateList rippleColor) {
+        if (convertedRippleColor != rippleColor) {
+            rippleDrawableColor = RippleUtils.convertToRippleDrawableColor(rippleColor);
+            convertedRippleColor = rippleColor;
+        }
+        return rippleDrawableColor;
+    }
+}
@@ -0,0 +1,602 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.text.TextPaint;
+import android.view.Menu;
+import android.view.MenuItem;
+
+import androidx.annotation.Dimension;
+import androidx.annotation.NonNull;
+import androidx.core.graphics.drawable.DrawableCompat;
+
+/**
+ * The icon and the label of a navigation item, laid out and drawn by hand. It is shared by
+ * {@link BottomNavigationItemView} and by the items that the bar draws itself, which only differ
+ * in where the content is drawn and how its drawable state is obtained.
+ */
+final class ItemContent {
+    interface Host {
+        /** @return the drawable state the icon and the label are drawn with. */
+        int[] getContentDrawableState();
+
+        /** Redraw the content. */
+        void invalidateContent();
+
+        /** @return whether the content is laid out from right to left. */
+        boolean isContentLayoutRtl();
+    }
+
+    /** No badge is shown. */
+    static final int BADGE_NONE = -1;
+    /** A dot without number is shown. */
+    static final int BADGE_DOT = 0;
+
+    private final Host host;
+
+    private MenuItem menuItem;
+    private boolean checked = false;
+
+    private ItemIconCache iconCache;
+    // The icon of the menu item, and the mutated and tinted copy of it that is drawn.
+    private Drawable iconSource;
+    private Drawable icon;
+    private CharSequence label;
+    private int iconSize;
+    private ColorStateList iconTint;
+    private ColorStateList labelTextColor;
+    private int contentSpacing;
+    @BottomNavigationBar.LabelVisibilityMode private int labelVisibilityMode;
+
+    // The area the content is laid out in.
+    private final Rect bounds = new Rect();
+
+    // The label as a String and its bounds for each text paint, so that neither layout nor
+    // drawing has to convert or measure the label again until it or the paints change.
+    private String labelText;
+    private final Rect activeLabelBounds = new Rect();
+    private final Rect inactiveLabelBounds = new Rect();
+    private boolean activeLabelBoundsValid;
+    private boolean inactiveLabelBoundsValid;
+    // The positions of the content with the label shown and with the icon alone, computed once per
+    // bounds and content. Selection only switches between them.
+    private final ItemContentLayout labeledLayout = new ItemContentLayout();
+    private final ItemContentLayout iconOnlyLayout = new ItemContentLayout();
+
+    // The badge, either BADGE_NONE, BADGE_DOT or a number, and its bounds next to the top end of
+    // the icon in its current position, computed when the badge or the icon position changes.
+    private BadgeStyle badgeStyle;
+    private int badge = BADGE_NONE;
+    private String badgeText;
+    private final RectF badgeBounds = new RectF();
+
+    // While updates are suspended, content layout and invalidation are only recorded, and issued
+    // once when the updates are resumed.
+    private boolean updatesSuspended;
+    private boolean contentLayoutPending;
+    private boolean invalidatePending;
+
+    private TextPaint textPaint;
+    private final TextPaint activeTextPaint;
+    private final TextPaint inactiveTextPaint;
+    private ColorStateList activeTextColor;
+    private ColorStateList inactiveTextColor;
+
+    // While the checked state changes, the label and icon colors are blended from the colors of
+    // the previous state to the colors of the current one, and the label fades in or out with the
+    // content moving between its two positions. The bar drives the transition.
+    private boolean selectionTransitionRunning;
+    private long selectionTransitionStartTime;
+    private float fromLabelFraction;
+    private float labelFraction;
+    private int fromLabelColor;
+    private int fromIconColor;
+    private int blendedLabelColor;
+    private int blendedIconColor;
+
+    ItemContent(@NonNull Context context, @NonNull Host host) {
+        this.host = host;
+
+        activeTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        activeTextPaint.density = context.getResources().getDisplayMetrics().density;
+        inactiveTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        inactiveTextPaint.density = activeTextPaint.density;
+        textPaint = inactiveTextPaint;
+    }
+
+    /** Set the area the content is laid out in and position the content inside it. */
+    void setBounds(int left, int top, int right, int bottom) {
+        bounds.set(left, top, right, bottom);
+        layoutContent();
+    }
+
+    /**
+     * Position the icon and the label inside the bounds, in each of the positions the label
+     * visibility mode can switch between.
+     */
+    private void layoutContent() {
+        if (icon == null) {
+            return;
+        }
+
+        int iconWidth = icon.getIntrinsicWidth();
+        int iconHeight = icon.getIntrinsicHeight();
+
+        if (labelVisibilityMode != BottomNavigationBar.LABEL_VISIBILITY_NEVER) {
+            Rect labelBounds = getLabelBounds(getLabelPaint());
+            labeledLayout.layoutWithLabel(bounds.left, bounds.top, bounds.width(),
+                    bounds.height(), iconWidth, iconHeight, labelBounds.top,
+                    labelBounds.height(), contentSpacing);
+        }
+        if (labelVisibilityMode != BottomNavigationBar.LABEL_VISIBILITY_ALWAYS) {
+            iconOnlyLayout.layoutIconOnly(bounds.left, bounds.top, bounds.width(),
+                    bounds.height(), iconWidth, iconHeight);
+        }
+        updateIconBounds();
+    }
+
+    /** Move the icon to its position for the current checked state. */
+    private void updateIconBounds() {
+        ItemContentLayout layout = isLabelShown() ? labeledLayout : iconOnlyLayout;
+        icon.setBounds(layout.iconLeft, layout.iconTop,
+                layout.iconLeft + icon.getIntrinsicWidth(),
+                layout.iconTop + icon.getIntrinsicHeight());
+        layoutBadge();
+    }
+
+    /** Position the badge on the top end corner of the icon. */
+    private void layoutBadge() {
+        if (badge == BADGE_NONE || badgeStyle == null || icon == null) {
+            return;
+        }
+        Rect iconBounds = icon.getBounds();
+        float centerX = host.isContentLayoutRtl() ? iconBounds.left : iconBounds.right;
+        float centerY = iconBounds.top;
+        if (badge == BADGE_DOT) {
+            float radius = badgeStyle.dotRadius;
+            badgeBounds.set(centerX - radius, centerY - radius, centerX + radius,
+                    centerY + radius);
+        } else {
+            float height = badgeStyle.height;
+            float width = Math.max(height, badgeStyle.textPaint.measureText(badgeText)
+                    + badgeStyle.horizontalPadding * 2);
+            float left = host.isContentLayoutRtl() ? centerX - width + height / 2
+                    : centerX - height / 2;
+            badgeBounds.set(left, centerY - height / 2, left + width, centerY + height / 2);
+        }
+    }
+
+    private void drawBadge(Canvas canvas) {
+        if (badge == BADGE_NONE || badgeStyle == null) {
+            return;
+        }
+        float radius = badgeBounds.height() / 2;
+        canvas.drawRoundRect(badgeBounds, radius, radius, badgeStyle.backgroundPaint);
+        if (badge != BADGE_DOT) {
+            canvas.drawText(badgeText, badgeBounds.centerX(),
+                    badgeBounds.centerY() + badgeStyle.textCenterOffset, badgeStyle.textPaint);
+        }
+    }
+
+    void draw(Canvas canvas) {
+        if (icon == null) {
+            return;
+        }
+
+        float fraction = selectionTransitionRunning ? labelFraction : (isLabelShown() ? 1 : 0);
+        int iconTop;
+        if (fraction >= 1) {
+            iconTop = labeledLayout.iconTop;
+        } else if (fraction <= 0) {
+            iconTop = iconOnlyLayout.iconTop;
+        } else {
+            iconTop = Math.round(iconOnlyLayout.iconTop
+                    + (labeledLayout.iconTop - iconOnlyLayout.iconTop) * fraction);
+        }
+
+        // The badge moves along with the icon.
+        int offset = iconTop - icon.getBounds().top;
+        if (offset != 0) {
+            canvas.save();
+            canvas.translate(0, offset);
+            icon.draw(canvas);
+            drawBadge(canvas);
+            canvas.restore();
+        } else {
+            icon.draw(canvas);
+            drawBadge(canvas);
+        }
+
+        if (fraction > 0 && labelText != null) {
+            // The label moves along with the icon, and fades while it is not fully shown.
+            TextPaint paint = getLabelPaint();
+            int paintColor = paint.getColor();
+            paint.setColor(selectionTransitionRunning ? blendedLabelColor : textPaint.getColor());
+            if (fraction < 1) {
+                paint.setAlpha(Math.round(paint.getAlpha() * fraction));
+            }
+            canvas.drawText(labelText, labeledLayout.labelBaselineX,
+                    labeledLayout.labelBaselineY + iconTop - labeledLayout.iconTop, paint);
+            paint.setColor(paintColor);
+        }
+    }
+
+    /** @return whether the label is shown in the current checked state. */
+    private boolean isLabelShown() {
+        switch (labelVisibilityMode) {
+            case BottomNavigationBar.LABEL_VISIBILITY_NEVER:
+                return false;
+            case BottomNavigationBar.LABEL_VISIBILITY_SELECTED:
+                return checked;
+            case BottomNavigationBar.LABEL_VISIBILITY_UNSELECTED:
+                return !checked;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return the paint the label is laid out and drawn with. A label shown in one checked state
+     * only keeps the paint of that state, so that it does not move while it fades out.
+     */
+    private TextPaint getLabelPaint() {
+        switch (labelVisibilityMode) {
+            case BottomNavigationBar.LABEL_VISIBILITY_SELECTED:
+                return activeTextPaint;
+            case BottomNavigationBar.LABEL_VISIBILITY_UNSELECTED:
+                return inactiveTextPaint;
+            default:
+                return textPaint;
+        }
+    }
+
+    private Rect getLabelBounds(TextPaint paint) {
+        if (paint == activeTextPaint) {
+            if (!activeLabelBoundsValid) {
+                measureLabel(activeTextPaint, activeLabelBounds);
+                activeLabelBoundsValid = true;
+            }
+            return activeLabelBounds;
+        }
+        if (!inactiveLabelBoundsValid) {
+            measureLabel(inactiveTextPaint, inactiveLabelBounds);
+            inactiveLabelBoundsValid = true;
+        }
+        return inactiveLabelBounds;
+    }
+
+    private void measureLabel(TextPaint paint, Rect bounds) {
+        if (labelText == null) {
+            bounds.setEmpty();
+        } else {
+            paint.getTextBounds(labelText, 0, labelText.length(), bounds);
+        }
+    }
+
+    private void invalidateLabelBounds() {
+        activeLabelBoundsValid = false;
+        inactiveLabelBoundsValid = false;
+    }
+
+    /**
+     * Take the icon, the label and the checked state of the given menu item. The host is expected
+     * to refresh its drawable state afterwards.
+     */
+    void bind(MenuItem menuItem) {
+        this.menuItem = menuItem;
+
+        checked = menuItem.isChecked();
+        if (labelTextColor == null) {
+            labelTextColor = checked ? activeTextColor : inactiveTextColor;
+        }
+
+        setIcon(menuItem.getIcon());
+        setLabel(menuItem.getTitle());
+
+        updateTextPaint();
+        requestContentLayout();
+    }
+
+    /**
+     * Update the checked state only. Selection never changes the size of the item. When the label
+     * is always shown, the content is only positioned again when the active and inactive labels
+     * differ. When the label is shown in one state only, the content switches between its
+     * positions computed beforehand. The host is expected to refresh its drawable state when this
+     * returns true.
+     *
+     * @return whether the checked state has changed.
+     */
+    boolean setChecked(boolean checked) {
+        if (this.checked == checked) {
+            return false;
+        }
+        this.checked = checked;
+
+        TextPaint oldTextPaint = textPaint;
+        updateTextPaint();
+        if (labelVisibilityMode == BottomNavigationBar.LABEL_VISIBILITY_ALWAYS) {
+            if (textPaint != oldTextPaint) {
+                // The active and inactive label may have different metrics.
+                requestContentLayout();
+            }
+        } else if (labelVisibilityMode != BottomNavigationBar.LABEL_VISIBILITY_NEVER) {
+            if (icon != null && !contentLayoutPending) {
+                updateIconBounds();
+            }
+            invalidateContent();
+        }
+        return true;
+    }
+
+    boolean isChecked() {
+        return checked;
+    }
+
+    /** Apply the drawable state of the host to the icon and the label. */
+    void onDrawableStateChanged() {
+        int[] state = host.getContentDrawableState();
+        if (icon != null) {
+            icon.setState(state);
+        }
+        updateTextColor(state);
+        invalidateContent();
+    }
+
+    /**
+     * Start the transition from the colors and the label currently drawn, must be called before
+     * the checked state changes.
+     *
+     * @param startTime the time of the first frame, in the time base of
+     *                  {@link android.view.animation.AnimationUtils#currentAnimationTimeMillis()}
+     */
+    void beginSelectionTransition(long startTime) {
+        int[] state = host.getContentDrawableState();
+        fromLabelColor = selectionTransitionRunning ? blendedLabelColor : textPaint.getColor();
+        fromIconColor = selectionTransitionRunning ? blendedIconColor
+                : ((iconTint != null) ? iconTint.getColorForState(state, 0) : 0);
+        fromLabelFraction = selectionTransitionRunning ? labelFraction : (isLabelShown() ? 1 : 0);
+        blendedLabelColor = fromLabelColor;
+        blendedIconColor = fromIconColor;
+        labelFraction = fromLabelFraction;
+        selectionTransitionStartTime = startTime;
+        selectionTransitionRunning = true;
+    }
+
+    boolean isSelectionTransitionRunning() {
+        return selectionTransitionRunning;
+    }
+
+    long getSelectionTransitionStartTime() {
+        return selectionTransitionStartTime;
+    }
+
+    /** Blend the colors and move the label at the given fraction of the transition, and redraw. */
+    void setSelectionTransitionFraction(float fraction) {
+        if (!selectionTransitionRunning) {
+            return;
+        }
+        int[] state = host.getContentDrawableState();
+        float toLabelFraction = isLabelShown() ? 1 : 0;
+        labelFraction = fromLabelFraction + (toLabelFraction - fromLabelFraction) * fraction;
+        blendedLabelColor = blendColors(fromLabelColor, textPaint.getColor(), fraction);
+        if (icon != null && iconTint != null) {
+            blendedIconColor = blendColors(fromIconColor,
+                    iconTint.getColorForState(state, 0), fraction);
+            DrawableCompat.setTint(icon, blendedIconColor);
+        }
+        invalidateContent();
+    }
+
+    /** Stop the transition, the content is drawn as in the current state again. */
+    void endSelectionTransition() {
+        if (!selectionTransitionRunning) {
+            return;
+        }
+        selectionTransitionRunning = false;
+        if (icon != null) {
+            DrawableCompat.setTintList(icon, iconTint);
+        }
+        invalidateContent();
+    }
+
+    private static int blendColors(int from, int to, float fraction) {
+        float inverse = 1 - fraction;
+        int a = (int) ((from >>> 24) * inverse + (to >>> 24) * fraction);
+        int r = (int) (((from >> 16) & 0xFF) * inverse + ((to >> 16) & 0xFF) * fraction);
+        int g = (int) (((from >> 8) & 0xFF) * inverse + ((to >> 8) & 0xFF) * fraction);
+        int b = (int) ((from & 0xFF) * inverse + (to & 0xFF) * fraction);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private void updateTextPaint() {
+        textPaint = checked ? activeTextPaint : inactiveTextPaint;
+    }
+
+    private void updateTextColor(int[] state) {
+        if (labelTextColor == null) {
+            return;
+        }
+        int newColor = labelTextColor.getColorForState(state, 0);
+        if (newColor != textPaint.getColor()) {
+            textPaint.setColor(newColor);
+            invalidateContent();
+        }
+    }
+
+    void suspendUpdates() {
+        updatesSuspended = true;
+    }
+
+    void resumeUpdates() {
+        updatesSuspended = false;
+        if (contentLayoutPending) {
+            contentLayoutPending = false;
+            layoutContent();
+        }
+        if (invalidatePending) {
+            invalidatePending = false;
+            host.invalidateContent();
+        }
+    }
+
+    /**
+     * Position the content again and redraw it. The bounds are fixed by the bar, so no layout of
+     * the host is needed.
+     */
+    private void requestContentLayout() {
+        if (updatesSuspended) {
+            contentLayoutPending = true;
+            invalidatePending = true;
+            return;
+        }
+        layoutContent();
+        host.invalidateContent();
+    }
+
+    private void invalidateContent() {
+        if (updatesSuspended) {
+            invalidatePending = true;
+            return;
+        }
+        host.invalidateContent();
+    }
+
+    MenuItem getMenuItem() {
+        return menuItem;
+    }
+
+    void setIconCache(ItemIconCache iconCache) {
+        this.iconCache = iconCache;
+    }
+
+    private void setIcon(Drawable newIcon) {
+        if (iconSource == newIcon) {
+            return;
+        }
+
+        iconSource = newIcon;
+        icon = null;
+        if (newIcon != null) {
+            int itemId = (menuItem != null) ? menuItem.getItemId() : Menu.NONE;
+            icon = (iconCache != null) ? iconCache.obtain(itemId, newIcon, iconTint)
+                    : ItemIconCache.prepare(newIcon, iconTint);
+        }
+
+        requestContentLayout();
+    }
+
+    private void setLabel(CharSequence label) {
+        if (this.label != null && this.label.equals(label)) {
+            return;
+        }
+        this.label = label;
+        labelText = (label == null) ? null : label.toString();
+        invalidateLabelBounds();
+        requestContentLayout();
+    }
+
+    void setBadgeStyle(BadgeStyle badgeStyle) {
+        this.badgeStyle = badgeStyle;
+        onBadgeStyleChanged();
+    }
+
+    /** Position the badge again after the shared badge style has changed, and redraw. */
+    void onBadgeStyleChanged() {
+        if (badge > BADGE_DOT && badgeStyle != null) {
+            badgeText = badgeStyle.getText(badge);
+        }
+        layoutBadge();
+        invalidateContent();
+    }
+
+    /**
+     * Set the badge, only the badge is positioned again and the content redrawn.
+     *
+     * @param badge {@link #BADGE_NONE}, {@link #BADGE_DOT} or a positive number
+     */
+    void setBadge(int badge) {
+        if (this.badge == badge) {
+            return;
+        }
+        boolean wasNumber = (this.badge > BADGE_DOT);
+        this.badge = badge;
+        if (badge > BADGE_DOT && badgeStyle != null) {
+            String text = badgeStyle.getText(badge);
+            if (wasNumber && text.equals(badgeText)) {
+                // Counts past the maximum number draw the same badge.
+                return;
+            }
+            badgeText = text;
+        }
+        layoutBadge();
+        invalidateContent();
+    }
+
+    void setIconSize(@Dimension int iconSize) {
+        if (this.iconSize == iconSize) {
+            return;
+        }
+        this.iconSize = iconSize;
+        requestContentLayout();
+    }
+
+    void setIconTint(ColorStateList iconTint) {
+        this.iconTint = iconTint;
+        if (icon != null) {
+            if (iconCache != null && menuItem != null) {
+                // Keep the cached tint in step with the icon it holds.
+                iconCache.setTint(menuItem.getItemId(), icon, iconTint);
+            } else {
+                DrawableCompat.setTintList(icon, iconTint);
+            }
+        }
+        invalidateContent();
+    }
+
+    void setLabelTextAppearanceInactive(LabelTextAppearance appearance) {
+        inactiveTextColor = appearance.textColor;
+        appearance.applyTo(inactiveTextPaint);
+        onLabelTextAppearanceChanged();
+    }
+
+    void setLabelTextAppearanceActive(LabelTextAppearance appearance) {
+        activeTextColor = appearance.textColor;
+        appearance.applyTo(activeTextPaint);
+        onLabelTextAppearanceChanged();
+    }
+
+    private void onLabelTextAppearanceChanged() {
+        invalidateLabelBounds();
+        requestContentLayout();
+    }
+
+    void setLabelTextColor(ColorStateList color) {
+        if (color != null) {
+            this.labelTextColor = color;
+            updateTextColor(host.getContentDrawableState());
+        }
+    }
+
+    void setContentSpacing(@Dimension int spacing) {
+        if (contentSpacing == spacing) {
+            return;
+        }
+        this.contentSpacing = spacing;
+        if (labelVisibilityMode != BottomNavigationBar.LABEL_VISIBILITY_NEVER) {
+            requestContentLayout();
+        }
+    }
+
+    void setLabelVisibilityMode(@BottomNavigationBar.LabelVisibilityMode int mode) {
+        if (this.labelVisibilityMode == mode) {
+            return;
+        }
+        this.labelVisibilityMode = mode;
+        requestContentLayout();
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.vejei.bottomnavigationbar;
+
+/**
+ * The position of the icon and the label inside an item, in pixels, centered together as one
+ * block or with the icon alone.
+ */
+final class ItemContentLayout {
+    int iconLeft;
+    int iconTop;
+    int labelBaselineX;
+    int labelBaselineY;
+
+    /**
+     * Center the icon and the label below it as one block.
+     *
+     * @param labelTop the top of the label bounds, relative to the baseline
+     * @param labelHeight the height of the label bounds
+     */
+    void layoutWithLabel(int left, int top, int width, int height, int iconWidth, int iconHeight,
+                         int labelTop, int labelHeight, int contentSpacing) {
+        int contentHeight = iconHeight + labelHeight + contentSpacing;
+        iconLeft = left + (width - iconWidth) / 2;
+        iconTop = top + (height - contentHeight) / 2;
+
+        labelBaselineX = left + width / 2;
+        labelBaselineY = iconTop + iconHeight + contentSpacing - labelTop;
+    }
+
+    /** Center the icon alone, the label position is left untouched. */
+    void layoutIconOnly(int left, int top, int width, int height, int iconWidth, int iconHeight) {
+        iconLeft = left + (width - iconWidth) / 2;
+        iconTop = top + (height - iconHeight) / 2;
+    }
+}
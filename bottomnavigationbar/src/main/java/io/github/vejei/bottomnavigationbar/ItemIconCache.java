@@ -0,0 +1,90 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.res.ColorStateList;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+import android.view.Menu;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.graphics.drawable.DrawableCompat;
+
+/**
+ * Keeps the mutated and tinted icon of each menu item, so that rebuilding the navigation items
+ * does not mutate every icon again.
+ */
+final class ItemIconCache {
+    private final SparseArray<Entry> entries = new SparseArray<>();
+
+    /**
+     * Get the icon to draw for the given menu item, it is only created again if the source icon of
+     * the menu item has changed.
+     *
+     * @param itemId the id of the menu item, items without id are not cached
+     * @param source the icon of the menu item
+     * @param tint the tint to apply to the icon
+     */
+    @NonNull
+    Drawable obtain(int itemId, @NonNull Drawable source, @Nullable ColorStateList tint) {
+        if (itemId == Menu.NONE) {
+            return prepare(source, tint);
+        }
+
+        Entry entry = entries.get(itemId);
+        if (entry == null || entry.source != source) {
+            entry = new Entry(source, prepare(source, tint), tint);
+            entries.put(itemId, entry);
+        } else if (entry.tint != tint) {
+            DrawableCompat.setTintList(entry.icon, tint);
+            entry.tint = tint;
+        }
+        return entry.icon;
+    }
+
+    /**
+     * Tint the given icon, and record the tint if it is the cached icon of the item.
+     *
+     * @param itemId the id of the menu item
+     * @param icon the icon obtained for the item
+     * @param tint the new tint of the icon
+     */
+    void setTint(int itemId, @NonNull Drawable icon, @Nullable ColorStateList tint) {
+        DrawableCompat.setTintList(icon, tint);
+        Entry entry = entries.get(itemId);
+        if (entry != null && entry.icon == icon) {
+            entry.tint = tint;
+        }
+    }
+
+    /** Drop the icon of an item that is no longer in the bar. */
+    void remove(int itemId) {
+        entries.remove(itemId);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /** Mutate the icon so that its state and tint are not shared with the menu item's icon. */
+    @NonNull
+    static Drawable prepare(@NonNull Drawable source, @Nullable ColorStateList tint) {
+        Drawable.ConstantState state = source.getConstantState();
+        Drawable icon = DrawableCompat.wrap(state == null ? source : state.newDrawable().mutate());
+        if (tint != null) {
+            DrawableCompat.setTintList(icon, tint);
+        }
+        return icon;
+    }
+
+    private static final class Entry {
+        final Drawable source;
+        final Drawable icon;
+        ColorStateList tint;
+
+        Entry(Drawable source, Drawable icon, ColorStateList tint) {
+            this.source = source;
+            this.icon = icon;
+            this.tint = tint;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.core.content.res.ResourcesCompat;
+
+/**
+ * The parts of a text appearance that the item labels use, resolved once and shared by all items
+ * of a bar.
+ */
+final class LabelTextAppearance {
+    private static final int TYPEFACE_SANS = 1;
+    private static final int TYPEFACE_SERIF = 2;
+    private static final int TYPEFACE_MONOSPACE = 3;
+
+    @StyleRes final int resId;
+    final float textSize;
+    @NonNull final Typeface typeface;
+    final float letterSpacing;
+    @Nullable final ColorStateList textColor;
+
+    private LabelTextAppearance(@StyleRes int resId, float textSize, @NonNull Typeface typeface,
+                                float letterSpacing, @Nullable ColorStateList textColor) {
+        this.resId = resId;
+        this.textSize = textSize;
+        this.typeface = typeface;
+        this.letterSpacing = letterSpacing;
+        this.textColor = textColor;
+    }
+
+    /**
+     * Resolve the given text appearance against the theme of the context.
+     *
+     * @param context the context whose theme is used to resolve the text appearance
+     * @param textAppearance the text appearance style, 0 for the default appearance
+     */
+    @NonNull
+    static LabelTextAppearance resolve(@NonNull Context context, @StyleRes int textAppearance) {
+        Resources resources = context.getResources();
+        float defaultTextSize = resources.getDimension(
+                R.dimen.bnb_bottom_navigation_bar_label_text_size);
+        if (textAppearance == 0) {
+            return new LabelTextAppearance(0, defaultTextSize, Typeface.DEFAULT, 0, null);
+        }
+
+        TypedArray a = context.getTheme().obtainStyledAttributes(textAppearance,
+                R.styleable.BottomNavigationBarTextAppearance);
+
+        float textSize = a.getDimension(
+                R.styleable.BottomNavigationBarTextAppearance_android_textSize, defaultTextSize);
+        float letterSpacing = a.getFloat(
+                R.styleable.BottomNavigationBarTextAppearance_android_letterSpacing, 0);
+        ColorStateList textColor = a.getColorStateList(
+                R.styleable.BottomNavigationBarTextAppearance_android_textColor);
+        Typeface typeface = resolveTypeface(context, a);
+
+        a.recycle();
+        return new LabelTextAppearance(textAppearance, textSize, typeface, letterSpacing,
+                textColor);
+    }
+
+    @NonNull
+    private static Typeface resolveTypeface(@NonNull Context context, @NonNull TypedArray a) {
+        int textStyle = a.getInt(R.styleable.BottomNavigationBarTextAppearance_android_textStyle,
+                Typeface.NORMAL);
+        int fontFamilyIndex = a.hasValue(R.styleable.BottomNavigationBarTextAppearance_fontFamily)
+                ? R.styleable.BottomNavigationBarTextAppearance_fontFamily
+                : R.styleable.BottomNavigationBarTextAppearance_android_fontFamily;
+
+        Typeface typeface = null;
+        if (a.hasValue(fontFamilyIndex)) {
+            int fontResId = a.getResourceId(fontFamilyIndex, 0);
+            if (fontResId != 0) {
+                try {
+                    typeface = ResourcesCompat.getFont(context, fontResId);
+                } catch (Resources.NotFoundException | UnsupportedOperationException e) {
+                    // Not a font resource, fall back to the family name below.
+                }
+            }
+            if (typeface == null) {
+                String familyName = a.getString(fontFamilyIndex);
+                if (familyName != null) {
+                    typeface = Typeface.create(familyName, textStyle);
+                }
+            }
+        }
+
+        if (typeface == null) {
+            Typeface base;
+            switch (a.getInt(R.styleable.BottomNavigationBarTextAppearance_android_typeface, 0)) {
+                case TYPEFACE_SANS:
+                    base = Typeface.SANS_SERIF;
+                    break;
+                case TYPEFACE_SERIF:
+                    base = Typeface.SERIF;
+                    break;
+                case TYPEFACE_MONOSPACE:
+                    base = Typeface.MONOSPACE;
+                    break;
+                default:
+                    base = Typeface.DEFAULT;
+            }
+            typeface = Typeface.create(base, textStyle);
+        } else if (typeface.getStyle() != textStyle) {
+            typeface = Typeface.create(typeface, textStyle);
+        }
+        return typeface;
+    }
+
+    /**
+     * Apply the appearance to the given paint, the color of the paint is left untouched since it
+     * depends on the state of the item.
+     */
+    void applyTo(@NonNull TextPaint paint) {
+        paint.setTextSize(textSize);
+        paint.setTypeface(typeface);
+        paint.setLetterSpacing(letterSpacing);
+        paint.setTextAlign(Paint.Align.CENTER);
+    }
+}
@@ -0,0 +1,365 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcelable;
+import android.util.SparseArray;
+import android.view.MenuItem;
+import android.view.View;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shows one fragment per navigation item in a container, driven by the selection of a
+ * {@link BottomNavigationBar}.
+ *
+ * <p>The fragment of an item is created on its first selection. The views of the most recently
+ * selected items are kept alive, hidden, up to {@link #setMaxAliveCount(int)}. Older ones are
+ * removed and their state is kept, so that they come back as they were left when they are
+ * selected again. Hidden fragments do not go past {@link Lifecycle.State#STARTED}.</p>
+ *
+ * <p>Fragments are looked up by tag after a configuration change, the host itself has to be
+ * given its state back with {@link #restoreInstanceState(Bundle)}. A fragment restored by the
+ * fragment manager is shown again rather than created twice, even if the host state is lost.</p>
+ */
+public class NavigationFragmentHost implements
+        BottomNavigationBar.OnNavigationItemSelectedListener {
+    private static final String TAG_PREFIX = NavigationFragmentHost.class.getName() + ":";
+    private static final String STATE_CURRENT_ITEM_ID = "current_item_id";
+    private static final String STATE_ALIVE_ITEM_IDS = "alive_item_ids";
+    private static final String STATE_SAVED_FRAGMENTS = "saved_fragments";
+
+    private static final int DEFAULT_MAX_ALIVE_COUNT = 3;
+
+    /** Creates the fragment of a navigation item. */
+    public interface FragmentFactory {
+
+        /**
+         * @param itemId the id of the menu item
+         * @return a new fragment for the item.
+         */
+        @NonNull
+        Fragment createFragment(@IdRes int itemId);
+    }
+
+    private final FragmentManager fragmentManager;
+    @IdRes private final int containerId;
+    private final FragmentFactory fragmentFactory;
+    private int maxAliveCount = DEFAULT_MAX_ALIVE_COUNT;
+
+    // The fragments whose views are alive by item id, the least recently shown first.
+    private final LinkedHashMap<Integer, Fragment> aliveFragments =
+            new LinkedHashMap<>(8, 0.75f, true);
+    // The state of the fragments that were removed.
+    private final SparseArray<Fragment.SavedState> savedFragments = new SparseArray<>();
+    private int currentItemId = View.NO_ID;
+    private Fragment currentFragment;
+    // The listener of the app, called after the host has shown the fragment of an item.
+    private BottomNavigationBar.OnNavigationItemSelectedListener itemSelectedListener;
+
+    private int preloadItemId = View.NO_ID;
+    // The queue the preload is scheduled on, null when none is scheduled.
+    private MessageQueue preloadQueue;
+    private final MessageQueue.IdleHandler preloadIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            preloadQueue = null;
+            preloadItem();
+            return false;
+        }
+    };
+
+    /**
+     * @param fragmentManager the fragment manager of the container
+     * @param containerId the id of the view the fragments are added to
+     * @param fragmentFactory creates the fragments of the items
+     */
+    public NavigationFragmentHost(@NonNull FragmentManager fragmentManager, @IdRes int containerId,
+                                  @NonNull FragmentFactory fragmentFactory) {
+        this.fragmentManager = fragmentManager;
+        this.containerId = containerId;
+        this.fragmentFactory = fragmentFactory;
+    }
+
+    /**
+     * @return the maximum number of fragments whose views are kept alive.
+     * @see #setMaxAliveCount(int)
+     */
+    public int getMaxAliveCount() {
+        return maxAliveCount;
+    }
+
+    /**
+     * Set the maximum number of fragments whose views are kept alive, the shown fragment
+     * included. Fragments past this number are removed from the least recently shown, and keep
+     * their saved state only.
+     *
+     * @param maxAliveCount the maximum number, at least 1
+     */
+    public void setMaxAliveCount(int maxAliveCount) {
+        if (maxAliveCount < 1) {
+            throw new IllegalArgumentException("At least one fragment must be kept alive.");
+        }
+        this.maxAliveCount = maxAliveCount;
+        if (aliveFragments.size() > maxAliveCount && !fragmentManager.isStateSaved()) {
+            FragmentTransaction transaction = fragmentManager.beginTransaction();
+            evictFragments(transaction);
+            transaction.commitNow();
+        }
+    }
+
+    /**
+     * Same as {@link #attach(BottomNavigationBar,
+     * BottomNavigationBar.OnNavigationItemSelectedListener)} without a listener of the app.
+     *
+     * @param bar the bar whose selection drives the fragments
+     */
+    public void attach(@NonNull BottomNavigationBar bar) {
+        attach(bar, null);
+    }
+
+    /**
+     * Show the fragment of the selected item of the bar, and show the fragment of the item
+     * selected from now on. After a restore, the restored fragment stays shown, the bar restores
+     * the same selection by itself.
+     *
+     * <p>The host becomes the item selected listener of the bar. The listener of the app, if any,
+     * has to be given here instead, it is called after the fragment of the item is shown.</p>
+     *
+     * @param bar the bar whose selection drives the fragments
+     * @param listener the listener of the app, may be null
+     */
+    public void attach(@NonNull BottomNavigationBar bar,
+                       @Nullable BottomNavigationBar.OnNavigationItemSelectedListener listener) {
+        itemSelectedListener = listener;
+        bar.setOnNavigationItemSelectedListener(this);
+        int selectedItemId = bar.getSelectedItemId();
+        if (currentFragment == null && selectedItemId != View.NO_ID) {
+            showItem(selectedItemId);
+        }
+    }
+
+    /**
+     * Stop following the selection of the bar and cancel the scheduled preload, to be called when
+     * the bar or the fragment manager goes away, from {@code onDestroyView} for instance. The
+     * listener of the app given to attach is set back on the bar.
+     *
+     * @param bar the bar given to {@link #attach(BottomNavigationBar)}
+     */
+    public void detach(@NonNull BottomNavigationBar bar) {
+        bar.setOnNavigationItemSelectedListener(itemSelectedListener);
+        itemSelectedListener = null;
+        cancelPreload();
+    }
+
+    @Override
+    public void onNavigationItemSelected(MenuItem item) {
+        showItem(item.getItemId());
+        if (itemSelectedListener != null) {
+            itemSelectedListener.onNavigationItemSelected(item);
+        }
+    }
+
+    /**
+     * Show the fragment of the given item and hide the shown one. The fragment is created when
+     * the item has no fragment alive, from its saved state if it had one. After the state of the
+     * fragment manager is saved, the change is allowed to be lost, as the selection of the bar
+     * is, and no fragment is removed until the next change.
+     *
+     * @param itemId the id of the menu item
+     */
+    public void showItem(@IdRes int itemId) {
+        if ((itemId == currentItemId && currentFragment != null)
+                || fragmentManager.isDestroyed()) {
+            return;
+        }
+        boolean stateSaved = fragmentManager.isStateSaved();
+
+        FragmentTransaction transaction = fragmentManager.beginTransaction()
+                .setReorderingAllowed(true);
+        Fragment fragment = aliveFragments.get(itemId);
+        if (fragment == null) {
+            fragment = findAddedFragment(itemId);
+        }
+        if (fragment == null) {
+            fragment = createFragment(itemId);
+            transaction.add(containerId, fragment, getTag(itemId));
+        } else {
+            transaction.show(fragment);
+        }
+        aliveFragments.put(itemId, fragment);
+        transaction.setMaxLifecycle(fragment, Lifecycle.State.RESUMED);
+
+        if (currentFragment != null) {
+            transaction.hide(currentFragment);
+            transaction.setMaxLifecycle(currentFragment, Lifecycle.State.STARTED);
+        }
+        currentItemId = itemId;
+        currentFragment = fragment;
+
+        if (stateSaved) {
+            // The state of an evicted fragment could no longer be saved with the host.
+            transaction.commitNowAllowingStateLoss();
+        } else {
+            evictFragments(transaction);
+            transaction.commitNow();
+        }
+    }
+
+    /**
+     * Create the fragment of the given item while the main thread is idle, so that its first
+     * selection shows it at once. Nothing is done if it is already alive or only one fragment is
+     * kept alive.
+     *
+     * @param itemId the id of the menu item likely to be selected next
+     */
+    public void preloadItemWhenIdle(@IdRes int itemId) {
+        preloadItemId = itemId;
+        if (preloadQueue == null) {
+            preloadQueue = Looper.myQueue();
+            preloadQueue.addIdleHandler(preloadIdleHandler);
+        }
+    }
+
+    private void cancelPreload() {
+        preloadItemId = View.NO_ID;
+        if (preloadQueue != null) {
+            preloadQueue.removeIdleHandler(preloadIdleHandler);
+            preloadQueue = null;
+        }
+    }
+
+    private void preloadItem() {
+        int itemId = preloadItemId;
+        preloadItemId = View.NO_ID;
+        if (itemId == View.NO_ID || maxAliveCount < 2 || aliveFragments.containsKey(itemId)
+                || fragmentManager.isStateSaved() || fragmentManager.isDestroyed()) {
+            return;
+        }
+        Fragment restoredFragment = findAddedFragment(itemId);
+        if (restoredFragment != null) {
+            aliveFragments.put(itemId, restoredFragment);
+            return;
+        }
+
+        Fragment fragment = createFragment(itemId);
+        FragmentTransaction transaction = fragmentManager.beginTransaction()
+                .setReorderingAllowed(true)
+                .add(containerId, fragment, getTag(itemId))
+                .hide(fragment)
+                .setMaxLifecycle(fragment, Lifecycle.State.STARTED);
+        aliveFragments.put(itemId, fragment);
+        evictFragments(transaction);
+        transaction.commitNow();
+    }
+
+    /**
+     * Find the fragment of the item that the fragment manager has, but the host does not know
+     * about, such as one restored while the host state was not.
+     */
+    @Nullable
+    private Fragment findAddedFragment(int itemId) {
+        Fragment fragment = fragmentManager.findFragmentByTag(getTag(itemId));
+        return (fragment != null && !fragment.isRemoving()) ? fragment : null;
+    }
+
+    private Fragment createFragment(int itemId) {
+        Fragment fragment = fragmentFactory.createFragment(itemId);
+        Fragment.SavedState savedState = savedFragments.get(itemId);
+        if (savedState != null) {
+            fragment.setInitialSavedState(savedState);
+            savedFragments.remove(itemId);
+        }
+        return fragment;
+    }
+
+    /** Remove the least recently shown fragments past the maximum, keeping their state. */
+    private void evictFragments(FragmentTransaction transaction) {
+        Iterator<Map.Entry<Integer, Fragment>> iterator = aliveFragments.entrySet().iterator();
+        while (aliveFragments.size() > maxAliveCount && iterator.hasNext()) {
+            Map.Entry<Integer, Fragment> entry = iterator.next();
+            Fragment fragment = entry.getValue();
+            if (fragment == currentFragment) {
+                continue;
+            }
+            if (fragment.isAdded()) {
+                Fragment.SavedState savedState = fragmentManager.saveFragmentInstanceState(
+                        fragment);
+                if (savedState != null) {
+                    savedFragments.put(entry.getKey(), savedState);
+                }
+            }
+            transaction.remove(fragment);
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Save the shown item, the alive fragments and the state of the removed ones.
+     *
+     * @param outState the state of the owner of the host
+     */
+    public void saveInstanceState(@NonNull Bundle outState) {
+        outState.putInt(getStateKey(STATE_CURRENT_ITEM_ID), currentItemId);
+        int[] aliveItemIds = new int[aliveFragments.size()];
+        int i = 0;
+        for (Integer itemId : aliveFragments.keySet()) {
+            aliveItemIds[i++] = itemId;
+        }
+        outState.putIntArray(getStateKey(STATE_ALIVE_ITEM_IDS), aliveItemIds);
+        outState.putSparseParcelableArray(getStateKey(STATE_SAVED_FRAGMENTS), savedFragments);
+    }
+
+    /**
+     * Take back the state saved by {@link #saveInstanceState(Bundle)}, and the fragments that the
+     * fragment manager has restored. Must be called before the first item is shown.
+     *
+     * @param savedInstanceState the state of the owner of the host, may be null
+     */
+    public void restoreInstanceState(@Nullable Bundle savedInstanceState) {
+        if (savedInstanceState == null) {
+            return;
+        }
+
+        SparseArray<Parcelable> saved = savedInstanceState.getSparseParcelableArray(
+                getStateKey(STATE_SAVED_FRAGMENTS));
+        if (saved != null) {
+            for (int i = 0; i < saved.size(); i++) {
+                savedFragments.put(saved.keyAt(i), (Fragment.SavedState) saved.valueAt(i));
+            }
+        }
+
+        int[] aliveItemIds = savedInstanceState.getIntArray(getStateKey(STATE_ALIVE_ITEM_IDS));
+        if (aliveItemIds != null) {
+            for (int itemId : aliveItemIds) {
+                Fragment fragment = fragmentManager.findFragmentByTag(getTag(itemId));
+                if (fragment != null) {
+                    aliveFragments.put(itemId, fragment);
+                }
+            }
+        }
+
+        currentItemId = savedInstanceState.getInt(getStateKey(STATE_CURRENT_ITEM_ID),
+                View.NO_ID);
+        currentFragment = aliveFragments.get(currentItemId);
+    }
+
+    private String getStateKey(String name) {
+        return TAG_PREFIX + containerId + ":" + name;
+    }
+
+    private String getTag(int itemId) {
+        return TAG_PREFIX + containerId + ":" + itemId;
+    }
+}
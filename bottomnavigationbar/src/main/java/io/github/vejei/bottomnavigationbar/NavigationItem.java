@@ -0,0 +1,26 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.graphics.drawable.Drawable;
+import android.view.MenuItem;
+
+/**
+ * A navigation item of the bar, either a {@link BottomNavigationItemView} child or a
+ * {@link FlatNavigationItem} drawn by the bar itself.
+ */
+interface NavigationItem {
+    ItemContent getContent();
+
+    MenuItem getMenuItem();
+
+    int getPosition();
+
+    void setPosition(int position);
+
+    /** Take the state of the given menu item. */
+    void updateView(MenuItem menuItem);
+
+    /** Update the checked state only, the rest of the item stays as it is. */
+    void setChecked(boolean checked);
+
+    void setViewBackground(Drawable background);
+}
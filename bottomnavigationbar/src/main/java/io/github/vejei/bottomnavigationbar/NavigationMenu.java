@@ -0,0 +1,228 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
+import android.util.AttributeSet;
+import android.util.Xml;
+import android.view.InflateException;
+import android.view.Menu;
+
+import androidx.annotation.MenuRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The menu of the bar, a flat array of items parsed straight from the menu resource, without
+ * going through the framework menu machinery.
+ */
+final class NavigationMenu {
+    private static final String TAG_MENU = "menu";
+    private static final String TAG_GROUP = "group";
+    private static final String TAG_ITEM = "item";
+
+    interface Callback {
+        /** Called when the title, icon, enabled or visible state of an item has changed. */
+        void onItemChanged(@NonNull NavigationMenuItem item);
+    }
+
+    private final NavigationMenuItem[] items;
+    private Callback callback;
+
+    NavigationMenu(@NonNull NavigationMenuItem[] items) {
+        this.items = items;
+        for (NavigationMenuItem item : items) {
+            item.setMenu(this);
+        }
+    }
+
+    int size() {
+        return items.length;
+    }
+
+    NavigationMenuItem getItem(int index) {
+        return items[index];
+    }
+
+    boolean hasVisibleItems() {
+        for (NavigationMenuItem item : items) {
+            if (item.isVisible()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Load the icons of all items now, instead of on their first use. */
+    void loadIcons() {
+        for (NavigationMenuItem item : items) {
+            item.getIcon();
+        }
+    }
+
+    /** @return a copy of the menu, whose items use the given context. */
+    @NonNull
+    NavigationMenu copy(@NonNull Context context) {
+        NavigationMenuItem[] copies = new NavigationMenuItem[items.length];
+        for (int i = 0; i < items.length; i++) {
+            copies[i] = items[i].copy(context);
+        }
+        return new NavigationMenu(copies);
+    }
+
+    void setCallback(@Nullable Callback callback) {
+        this.callback = callback;
+    }
+
+    void onItemChanged(@NonNull NavigationMenuItem item) {
+        if (callback != null) {
+            callback.onItemChanged(item);
+        }
+    }
+
+    /** Create the menu from a descriptor, no resource other than the titles is read. */
+    @NonNull
+    static NavigationMenu create(@NonNull Context context,
+                                 @NonNull NavigationMenuDescriptor descriptor) {
+        NavigationMenuItem[] items = new NavigationMenuItem[descriptor.size()];
+        for (int i = 0; i < items.length; i++) {
+            NavigationMenuItem item = new NavigationMenuItem(context, descriptor.ids[i],
+                    Menu.NONE, i);
+            item.setTitle((descriptor.titleResIds[i] != 0)
+                    ? context.getText(descriptor.titleResIds[i]) : descriptor.titles[i]);
+            item.setIconResId(descriptor.iconResIds[i]);
+            item.setEnabled(descriptor.enabled[i]);
+            item.setVisible(descriptor.visible[i]);
+            items[i] = item;
+        }
+        return new NavigationMenu(items);
+    }
+
+    /**
+     * Parse the given menu resource. Items are ordered by their {@code android:orderInCategory},
+     * items with the same order keep the order in which they are declared.
+     *
+     * @throws UnsupportedOperationException if the menu contains submenus.
+     */
+    @NonNull
+    static NavigationMenu inflate(@NonNull Context context, @MenuRes int menuRes) {
+        XmlResourceParser parser = null;
+        try {
+            parser = context.getResources().getLayout(menuRes);
+            return new NavigationMenu(parseMenu(context, parser, Xml.asAttributeSet(parser)));
+        } catch (XmlPullParserException e) {
+            throw new InflateException("Error inflating menu XML", e);
+        } catch (IOException e) {
+            throw new InflateException("Error inflating menu XML", e);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
+    }
+
+    private static NavigationMenuItem[] parseMenu(Context context, XmlPullParser parser,
+                                                  AttributeSet attrs)
+            throws XmlPullParserException, IOException {
+        List<NavigationMenuItem> items = new ArrayList<>();
+
+        // Move to the root menu tag.
+        int eventType = parser.getEventType();
+        while (eventType != XmlPullParser.START_TAG && eventType != XmlPullParser.END_DOCUMENT) {
+            eventType = parser.next();
+        }
+        if (eventType != XmlPullParser.START_TAG || !TAG_MENU.equals(parser.getName())) {
+            throw new RuntimeException("Expecting menu, got " + parser.getName());
+        }
+
+        int groupId = Menu.NONE;
+        int groupOrder = 0;
+        boolean groupEnabled = true;
+        boolean groupVisible = true;
+        String unknownTag = null;
+
+        eventType = parser.next();
+        boolean reachedEndOfMenu = false;
+        while (!reachedEndOfMenu && eventType != XmlPullParser.END_DOCUMENT) {
+            String tagName = parser.getName();
+            if (eventType == XmlPullParser.START_TAG && unknownTag == null) {
+                if (TAG_GROUP.equals(tagName)) {
+                    TypedArray a = context.obtainStyledAttributes(attrs,
+                            R.styleable.BottomNavigationBarMenuGroup);
+                    groupId = a.getResourceId(R.styleable.BottomNavigationBarMenuGroup_android_id,
+                            Menu.NONE);
+                    groupOrder = a.getInt(
+                            R.styleable.BottomNavigationBarMenuGroup_android_orderInCategory, 0);
+                    groupEnabled = a.getBoolean(
+                            R.styleable.BottomNavigationBarMenuGroup_android_enabled, true);
+                    groupVisible = a.getBoolean(
+                            R.styleable.BottomNavigationBarMenuGroup_android_visible, true);
+                    a.recycle();
+                } else if (TAG_ITEM.equals(tagName)) {
+                    TypedArray a = context.obtainStyledAttributes(attrs,
+                            R.styleable.BottomNavigationBarMenuItem);
+                    int itemId = a.getResourceId(
+                            R.styleable.BottomNavigationBarMenuItem_android_id, Menu.NONE);
+                    int itemOrder = a.getInt(
+                            R.styleable.BottomNavigationBarMenuItem_android_orderInCategory,
+                            groupOrder);
+                    NavigationMenuItem item = new NavigationMenuItem(context, itemId, groupId,
+                            itemOrder);
+                    item.setTitle(a.getText(R.styleable.BottomNavigationBarMenuItem_android_title));
+                    item.setTitleCondensed(a.getText(
+                            R.styleable.BottomNavigationBarMenuItem_android_titleCondensed));
+                    item.setIconResId(a.getResourceId(
+                            R.styleable.BottomNavigationBarMenuItem_android_icon, 0));
+                    item.setChecked(a.getBoolean(
+                            R.styleable.BottomNavigationBarMenuItem_android_checked, false));
+                    item.setEnabled(a.getBoolean(
+                            R.styleable.BottomNavigationBarMenuItem_android_enabled,
+                            groupEnabled));
+                    item.setVisible(a.getBoolean(
+                            R.styleable.BottomNavigationBarMenuItem_android_visible,
+                            groupVisible));
+                    a.recycle();
+                    insertItem(items, item);
+                } else if (TAG_MENU.equals(tagName)) {
+                    throw new UnsupportedOperationException(
+                            BottomNavigationBar.class.getSimpleName()
+                                    + " does not support submenus.");
+                } else {
+                    unknownTag = tagName;
+                }
+            } else if (eventType == XmlPullParser.END_TAG) {
+                if (unknownTag != null) {
+                    if (unknownTag.equals(tagName)) {
+                        unknownTag = null;
+                    }
+                } else if (TAG_GROUP.equals(tagName)) {
+                    groupId = Menu.NONE;
+                    groupOrder = 0;
+                    groupEnabled = true;
+                    groupVisible = true;
+                } else if (TAG_MENU.equals(tagName)) {
+                    reachedEndOfMenu = true;
+                }
+            }
+            eventType = parser.next();
+        }
+
+        return items.toArray(new NavigationMenuItem[items.size()]);
+    }
+
+    /** Insert the item after the last item whose order is not greater than its own. */
+    static void insertItem(List<NavigationMenuItem> items, NavigationMenuItem item) {
+        int index = items.size();
+        while (index > 0 && items.get(index - 1).getOrder() > item.getOrder()) {
+            index--;
+        }
+        items.add(index, item);
+    }
+}
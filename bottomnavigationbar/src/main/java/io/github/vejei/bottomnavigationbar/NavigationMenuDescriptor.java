@@ -0,0 +1,146 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.view.Menu;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StringRes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable description of the navigation menu, used to set up the bar without inflating a
+ * menu resource. A descriptor holds no context, so it can be built once and kept in a constant.
+ *
+ * <pre>
+ * NavigationMenuDescriptor menu = new NavigationMenuDescriptor.Builder()
+ *         .addItem(R.id.home, R.string.menu_home, R.drawable.ic_home)
+ *         .addItem(R.id.explore, R.string.menu_explore, R.drawable.ic_explore)
+ *         .addItem(R.id.account, R.string.menu_account, R.drawable.ic_account)
+ *         .build();
+ * bottomNavigationBar.setNavigationMenu(menu);
+ * </pre>
+ *
+ * @see BottomNavigationBar#setNavigationMenu(NavigationMenuDescriptor)
+ */
+public final class NavigationMenuDescriptor {
+    final int[] ids;
+    @StringRes final int[] titleResIds;
+    final CharSequence[] titles;
+    @DrawableRes final int[] iconResIds;
+    final boolean[] enabled;
+    final boolean[] visible;
+
+    private NavigationMenuDescriptor(Builder builder) {
+        int size = builder.items.size();
+        ids = new int[size];
+        titleResIds = new int[size];
+        titles = new CharSequence[size];
+        iconResIds = new int[size];
+        enabled = new boolean[size];
+        visible = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Builder.Item item = builder.items.get(i);
+            ids[i] = item.id;
+            titleResIds[i] = item.titleResId;
+            titles[i] = item.title;
+            iconResIds[i] = item.iconResId;
+            enabled[i] = item.enabled;
+            visible[i] = item.visible;
+        }
+    }
+
+    /** @return the number of items in the menu. */
+    public int size() {
+        return ids.length;
+    }
+
+    /** Builder of {@link NavigationMenuDescriptor}, items are kept in the order they are added. */
+    public static final class Builder {
+        private final List<Item> items = new ArrayList<>();
+
+        /**
+         * Add an item whose title is a string resource.
+         *
+         * @param id the id of the item, reported by {@link android.view.MenuItem#getItemId()}
+         * @param titleRes the title of the item
+         * @param iconRes the icon of the item
+         */
+        @NonNull
+        public Builder addItem(@IdRes int id, @StringRes int titleRes, @DrawableRes int iconRes) {
+            items.add(new Item(id, titleRes, null, iconRes));
+            return this;
+        }
+
+        /**
+         * Add an item with the given title.
+         *
+         * @param id the id of the item, reported by {@link android.view.MenuItem#getItemId()}
+         * @param title the title of the item
+         * @param iconRes the icon of the item
+         */
+        @NonNull
+        public Builder addItem(@IdRes int id, @Nullable CharSequence title,
+                               @DrawableRes int iconRes) {
+            items.add(new Item(id, 0, title, iconRes));
+            return this;
+        }
+
+        /**
+         * Set whether the item with the given id is enabled, items are enabled by default.
+         *
+         * @throws IllegalArgumentException if no item with the given id has been added.
+         */
+        @NonNull
+        public Builder setEnabled(@IdRes int id, boolean enabled) {
+            findItem(id).enabled = enabled;
+            return this;
+        }
+
+        /**
+         * Set whether the item with the given id is visible, items are visible by default.
+         *
+         * @throws IllegalArgumentException if no item with the given id has been added.
+         */
+        @NonNull
+        public Builder setVisible(@IdRes int id, boolean visible) {
+            findItem(id).visible = visible;
+            return this;
+        }
+
+        private Item findItem(int id) {
+            if (id != Menu.NONE) {
+                for (Item item : items) {
+                    if (item.id == id) {
+                        return item;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("No item with id " + id + ".");
+        }
+
+        @NonNull
+        public NavigationMenuDescriptor build() {
+            return new NavigationMenuDescriptor(this);
+        }
+
+        private static final class Item {
+            final int id;
+            final int titleResId;
+            final CharSequence title;
+            final int iconResId;
+            boolean enabled = true;
+            boolean visible = true;
+
+            Item(int id, int titleResId, CharSequence title, int iconResId) {
+                this.id = id;
+                this.titleResId = titleResId;
+                this.title = title;
+                this.iconResId = iconResId;
+            }
+        }
+    }
+}
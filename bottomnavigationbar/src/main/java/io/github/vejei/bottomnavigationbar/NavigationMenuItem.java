@@ -0,0 +1,332 @@
+package io.github.vejei.bottomnavigationbar;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.drawable.Drawable;
+import android.view.ActionProvider;
+import android.view.ContextMenu;
+import android.view.LayoutInflater;
+import android.view.MenuItem;
+import android.view.SubMenu;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.StringRes;
+import androidx.appcompat.content.res.AppCompatResources;
+
+/**
+ * A menu item of {@link NavigationMenu}. It only holds what the bar needs, the action bar related
+ * properties are stored but never used.
+ */
+final class NavigationMenuItem implements MenuItem {
+    private final Context context;
+    private NavigationMenu menu;
+
+    private final int id;
+    private final int groupId;
+    private final int order;
+
+    private CharSequence title;
+    private CharSequence titleCondensed;
+    @DrawableRes private int iconResId;
+    private Drawable icon;
+
+    private boolean checkable;
+    private boolean checked;
+    private boolean enabled = true;
+    private boolean visible = true;
+
+    private Intent intent;
+    private char numericShortcut;
+    private char alphabeticShortcut;
+    private OnMenuItemClickListener clickListener;
+    private View actionView;
+    private ActionProvider actionProvider;
+    private OnActionExpandListener actionExpandListener;
+
+    NavigationMenuItem(@NonNull Context context, int id, int groupId, int order) {
+        this.context = context;
+        this.id = id;
+        this.groupId = groupId;
+        this.order = order;
+    }
+
+    void setMenu(@NonNull NavigationMenu menu) {
+        this.menu = menu;
+    }
+
+    /**
+     * @return a copy of the item for another menu, with a new drawable from the constant state of
+     * the loaded icon so that the icon is not decoded again.
+     */
+    @NonNull
+    NavigationMenuItem copy(@NonNull Context context) {
+        NavigationMenuItem copy = new NavigationMenuItem(context, id, groupId, order);
+        copy.title = title;
+        copy.titleCondensed = titleCondensed;
+        copy.iconResId = iconResId;
+        if (icon != null) {
+            Drawable.ConstantState state = icon.getConstantState();
+            copy.icon = (state != null) ? state.newDrawable(context.getResources()) : icon;
+        }
+        copy.checkable = checkable;
+        copy.checked = checked;
+        copy.enabled = enabled;
+        copy.visible = visible;
+        return copy;
+    }
+
+    private void onChanged() {
+        if (menu != null) {
+            menu.onItemChanged(this);
+        }
+    }
+
+    @Override
+    public int getItemId() {
+        return id;
+    }
+
+    @Override
+    public int getGroupId() {
+        return groupId;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public MenuItem setTitle(CharSequence title) {
+        this.title = title;
+        onChanged();
+        return this;
+    }
+
+    @Override
+    public MenuItem setTitle(@StringRes int title) {
+        return setTitle(context.getText(title));
+    }
+
+    @Override
+    public CharSequence getTitle() {
+        return title;
+    }
+
+    @Override
+    public MenuItem setTitleCondensed(CharSequence title) {
+        this.titleCondensed = title;
+        return this;
+    }
+
+    @Override
+    public CharSequence getTitleCondensed() {
+        return (titleCondensed != null) ? titleCondensed : title;
+    }
+
+    @Override
+    public MenuItem setIcon(Drawable icon) {
+        this.icon = icon;
+        this.iconResId = 0;
+        onChanged();
+        return this;
+    }
+
+    @Override
+    public MenuItem setIcon(@DrawableRes int iconRes) {
+        this.icon = null;
+        this.iconResId = iconRes;
+        onChanged();
+        return this;
+    }
+
+    /** Set the icon resource without notifying the menu, the icon is loaded on first use. */
+    void setIconResId(@DrawableRes int iconRes) {
+        this.icon = null;
+        this.iconResId = iconRes;
+    }
+
+    @Override
+    public Drawable getIcon() {
+        if (icon == null && iconResId != 0) {
+            icon = AppCompatResources.getDrawable(context, iconResId);
+            iconResId = 0;
+        }
+        return icon;
+    }
+
+    @Override
+    public MenuItem setIntent(Intent intent) {
+        this.intent = intent;
+        return this;
+    }
+
+    @Override
+    public Intent getIntent() {
+        return intent;
+    }
+
+    @Override
+    public MenuItem setShortcut(char numericChar, char alphaChar) {
+        this.numericShortcut = numericChar;
+        this.alphabeticShortcut = Character.toLowerCase(alphaChar);
+        return this;
+    }
+
+    @Override
+    public MenuItem setNumericShortcut(char numericChar) {
+        this.numericShortcut = numericChar;
+        return this;
+    }
+
+    @Override
+    public char getNumericShortcut() {
+        return numericShortcut;
+    }
+
+    @Override
+    public MenuItem setAlphabeticShortcut(char alphaChar) {
+        this.alphabeticShortcut = Character.toLowerCase(alphaChar);
+        return this;
+    }
+
+    @Override
+    public char getAlphabeticShortcut() {
+        return alphabeticShortcut;
+    }
+
+    @Override
+    public MenuItem setCheckable(boolean checkable) {
+        this.checkable = checkable;
+        return this;
+    }
+
+    @Override
+    public boolean isCheckable() {
+        return checkable;
+    }
+
+    @Override
+    public MenuItem setChecked(boolean checked) {
+        // The checked state is owned by the bar, which updates the items itself.
+        this.checked = checked;
+        return this;
+    }
+
+    @Override
+    public boolean isChecked() {
+        return checked;
+    }
+
+    @Override
+    public MenuItem setVisible(boolean visible) {
+        this.visible = visible;
+        onChanged();
+        return this;
+    }
+
+    @Override
+    public boolean isVisible() {
+        return visible;
+    }
+
+    @Override
+    public MenuItem setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        onChanged();
+        return this;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean hasSubMenu() {
+        return false;
+    }
+
+    @Override
+    public SubMenu getSubMenu() {
+        return null;
+    }
+
+    @Override
+    public MenuItem setOnMenuItemClickListener(OnMenuItemClickListener menuItemClickListener) {
+        this.clickListener = menuItemClickListener;
+        return this;
+    }
+
+    @Override
+    public ContextMenu.ContextMenuInfo getMenuInfo() {
+        return null;
+    }
+
+    @Override
+    public void setShowAsAction(int actionEnum) {
+        // Not shown in an action bar.
+    }
+
+    @Override
+    public MenuItem setShowAsActionFlags(int actionEnum) {
+        return this;
+    }
+
+    @Override
+    public MenuItem setActionView(View view) {
+        this.actionView = view;
+        return this;
+    }
+
+    @Override
+    public MenuItem setActionView(int resId) {
+        LayoutInflater inflater = LayoutInflater.from(context);
+        return setActionView(inflater.inflate(resId, new LinearLayout(context), false));
+    }
+
+    @Override
+    public View getActionView() {
+        return actionView;
+    }
+
+    @Override
+    public MenuItem setActionProvider(ActionProvider actionProvider) {
+        this.actionProvider = actionProvider;
+        return this;
+    }
+
+    @Override
+    public ActionProvider getActionProvider() {
+        return actionProvider;
+    }
+
+    @Override
+    public boolean expandActionView() {
+        return false;
+    }
+
+    @Override
+    public boolean collapseActionView() {
+        return false;
+    }
+
+    @Override
+    public boolean isActionViewExpanded() {
+        return false;
+    }
+
+    @Override
+    public MenuItem setOnActionExpandListener(OnActionExpandListener listener) {
+        this.actionExpandListener = listener;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return (title != null) ? title.toString() : "";
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.vejei.bottomnavigationbar;
+
+/**
+ * The color arithmetic of the item ripples on packed ARGB ints. RippleDrawable draws its color at
+ * half its alpha, so the requested ripple colors are compensated here.
+ */
+final class RippleColors {
+    private RippleColors() {
+    }
+
+    /** @return the color with its alpha doubled, up to fully opaque. */
+    static int doubleAlpha(int color) {
+        int alpha = Math.min(2 * (color >>> 24), 255);
+        return (color & 0x00FFFFFF) | (alpha << 24);
+    }
+}
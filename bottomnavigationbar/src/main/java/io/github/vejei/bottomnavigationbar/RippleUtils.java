@@ -1,14 +1,11 @@
 package io.github.vejei.bottomnavigationbar;
 
-import android.annotation.TargetApi;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
-import android.os.Build;
 import android.util.StateSet;
 
 import androidx.annotation.ColorInt;
 import androidx.annotation.Nullable;
-import androidx.core.graphics.ColorUtils;
 
 final class RippleUtils {
     private static final int[] SELECTED_PRESSED_STATE_SET = {
@@ -53,13 +50,6 @@ final class RippleUtils {
         } else {
             color = Color.TRANSPARENT;
         }
-        return doubleAlpha(color);
-    }
-
-    @ColorInt
-    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
-    private static int doubleAlpha(@ColorInt int color) {
-        int alpha = Math.min(2 * Color.alpha(color), 255);
-        return ColorUtils.setAlphaComponent(color, alpha);
+        return RippleColors.doubleAlpha(color);
     }
 }
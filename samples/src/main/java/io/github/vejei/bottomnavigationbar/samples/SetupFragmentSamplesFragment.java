@@ -4,7 +4,6 @@ import android.content.Context;
 import android.os.Bundle;
 import android.view.Gravity;
 import android.view.LayoutInflater;
-import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.LinearLayout;
@@ -14,15 +13,16 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.fragment.app.FragmentManager;
 
 import com.google.android.material.button.MaterialButton;
 
 import io.github.vejei.bottomnavigationbar.BottomNavigationBar;
+import io.github.vejei.bottomnavigationbar.NavigationFragmentHost;
 
 public class SetupFragmentSamplesFragment extends Fragment {
     private static final String TAG = SetupFragmentSamplesFragment.class.getSimpleName();
-    private Fragment currentFragment;
+    private BottomNavigationBar bottomNavigationBar;
+    private NavigationFragmentHost fragmentHost;
 
     @Nullable
     @Override
@@ -35,37 +35,7 @@ public class SetupFragmentSamplesFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        FragmentManager fragmentManager = getChildFragmentManager();
-        BottomNavigationBar bottomNavigationBar = view.findViewById(R.id.bottom_navigation_bar);
-        bottomNavigationBar.setOnNavigationItemSelectedListener(
-                new BottomNavigationBar.OnNavigationItemSelectedListener() {
-                    @Override
-                    public void onNavigationItemSelected(MenuItem item) {
-                        Fragment selectedFragment = null;
-                        int itemId = item.getItemId();
-                        if (itemId == R.id.home) {
-                            selectedFragment = fragmentManager.findFragmentByTag(HomeFragment.TAG);
-                        } else if (itemId == R.id.explore) {
-                            selectedFragment = fragmentManager
-                                    .findFragmentByTag(ExploreFragment.TAG);
-                        } else if (itemId == R.id.collections) {
-                            selectedFragment = fragmentManager
-                                    .findFragmentByTag(CollectionsFragment.TAG);
-                        } else if (itemId == R.id.school) {
-                            selectedFragment = fragmentManager
-                                    .findFragmentByTag(SchoolFragment.TAG);
-                        } else if (itemId == R.id.account) {
-                            selectedFragment = fragmentManager
-                                    .findFragmentByTag(AccountFragment.TAG);
-                        }
-
-                        if (currentFragment != null && selectedFragment != null) {
-                            fragmentManager.beginTransaction().show(selectedFragment)
-                                    .hide(currentFragment).commit();
-                            currentFragment = selectedFragment;
-                        }
-                    }
-                });
+        bottomNavigationBar = view.findViewById(R.id.bottom_navigation_bar);
         View actionView = bottomNavigationBar.getActionView();
         MaterialButton addButton = actionView.findViewById(R.id.button_add);
         addButton.setOnClickListener(new View.OnClickListener() {
@@ -75,27 +45,45 @@ public class SetupFragmentSamplesFragment extends Fragment {
             }
         });
 
-        initializeFragments();
+        // The fragments are created on their first selection, only the two most recently
+        // selected ones keep their views.
+        fragmentHost = new NavigationFragmentHost(getChildFragmentManager(),
+                R.id.child_fragment_container, new NavigationFragmentHost.FragmentFactory() {
+                    @NonNull
+                    @Override
+                    public Fragment createFragment(int itemId) {
+                        if (itemId == R.id.explore) {
+                            return new ExploreFragment();
+                        } else if (itemId == R.id.collections) {
+                            return new CollectionsFragment();
+                        } else if (itemId == R.id.school) {
+                            return new SchoolFragment();
+                        } else if (itemId == R.id.account) {
+                            return new AccountFragment();
+                        }
+                        return new HomeFragment();
+                    }
+                });
+        fragmentHost.setMaxAliveCount(2);
+        fragmentHost.restoreInstanceState(savedInstanceState);
+        fragmentHost.attach(bottomNavigationBar);
+        fragmentHost.preloadItemWhenIdle(R.id.explore);
     }
 
-    private void initializeFragments() {
-        addAndHideFragment(new ExploreFragment(), ExploreFragment.TAG);
-        addAndHideFragment(new CollectionsFragment(), CollectionsFragment.TAG);
-        addAndHideFragment(new SchoolFragment(), SchoolFragment.TAG);
-        addAndHideFragment(new AccountFragment(), AccountFragment.TAG);
-
-        HomeFragment homeFragment = new HomeFragment();
-        getChildFragmentManager().beginTransaction()
-                .add(R.id.child_fragment_container, homeFragment, HomeFragment.TAG)
-                .commit();
-        currentFragment = homeFragment;
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (fragmentHost != null) {
+            fragmentHost.detach(bottomNavigationBar);
+        }
     }
 
-    private void addAndHideFragment(Fragment fragment, String tag) {
-        getChildFragmentManager().beginTransaction()
-                .add(R.id.child_fragment_container, fragment, tag)
-                .hide(fragment)
-                .commit();
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (fragmentHost != null) {
+            fragmentHost.saveInstanceState(outState);
+        }
     }
 
     private static View createFragmentView(Context context, String name) {